@@ -0,0 +1,54 @@
+package com.dataguard.superherochallenge.benchmark;
+
+import com.dataguard.superherochallenge.adapter.HeroAdapter;
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.entity.Hero;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeroAdapterBenchmark {
+
+    private HeroAdapter heroAdapter;
+    private Hero hero;
+    private HeroDto heroDto;
+    private HeroDto partialHeroDto;
+
+    @Setup
+    public void setup() {
+        heroAdapter = new HeroAdapter();
+        hero = HeroFixtures.hero(1);
+        heroDto = HeroFixtures.heroDto(2);
+        partialHeroDto = HeroDto.builder().alias("New alias").build();
+    }
+
+    @Benchmark
+    public Hero heroDtoToHero() {
+        return heroAdapter.adapterHeroDtoToHero(heroDto);
+    }
+
+    @Benchmark
+    public HeroDto heroToHeroDto() {
+        return heroAdapter.adapterHeroToHeroDto(hero);
+    }
+
+    @Benchmark
+    public Hero heroToBeUpdated() {
+        return heroAdapter.adapterHeroToBeUpdated(hero, partialHeroDto);
+    }
+
+}
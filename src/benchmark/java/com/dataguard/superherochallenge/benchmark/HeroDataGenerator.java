@@ -0,0 +1,143 @@
+package com.dataguard.superherochallenge.benchmark;
+
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Synthetic heroes with skewed properties: a few powers, weapons and associations are shared by most heroes
+// and a long tail by very few, following a Zipf distribution. Hero i is always the same for the same seed.
+//
+// Writes NDJSON ready for POST /api/v1/heroes/_bulk: HeroDataGenerator <count> <output file> [seed]
+public class HeroDataGenerator {
+
+    private static final double SKEW = 1.1;
+
+    private static final String[] COMMON_POWERS = {"super-strength", "flight", "healing", "genius-intelligence",
+        "speed", "durability", "telepathy", "energy-projection", "invisibility", "shape-shifting"};
+    private static final String[] COMMON_WEAPONS = {"shield", "sword", "bow", "hammer", "claws", "gun",
+        "web-shooter", "staff"};
+    private static final String[] COMMON_ASSOCIATIONS = {"avengers", "x-men", "justice-league",
+        "fantastic-four", "guardians-of-the-galaxy", "defenders", "shield-agency", "kree", "skrulls"};
+
+    private final long seed;
+    private final Vocabulary powers;
+    private final Vocabulary weapons;
+    private final Vocabulary associations;
+
+    public HeroDataGenerator(long seed) {
+        this.seed = seed;
+        this.powers = new Vocabulary("power", COMMON_POWERS, 500);
+        this.weapons = new Vocabulary("weapon", COMMON_WEAPONS, 300);
+        this.associations = new Vocabulary("association", COMMON_ASSOCIATIONS, 400);
+    }
+
+    public static String name(int i) {
+        return "Hero-" + i;
+    }
+
+    public HeroDto hero(int i) {
+        var random = new Random(seed * 31 + i);
+        return HeroDto.builder()
+            .name(name(i))
+            .alias("Alias " + Integer.toString(i, 36))
+            .origin("Origin of hero " + i + ", " + (random.nextBoolean() ? "born with it" : "accident in a lab"))
+            .powers(powers.sample(random, 1 + geometric(random, 0.45, 7)))
+            .weapons(weapons.sample(random, geometric(random, 0.55, 4)))
+            .associations(associations.sample(random, geometric(random, 0.4, 6)))
+            .build();
+    }
+
+    public Stream<HeroDto> heroes(int from, int to) {
+        return IntStream.range(from, to).mapToObj(this::hero);
+    }
+
+    // Property values drawn with the same skew as the heroes, so lookups hit popular values more often
+    public String randomPower(Random random) {
+        return powers.next(random);
+    }
+
+    public String randomAssociation(Random random) {
+        return associations.next(random);
+    }
+
+    public void writeNdjson(int count, Writer writer, ObjectMapper objectMapper) throws IOException {
+        for (int i = 0; i < count; i++) {
+            writer.write(objectMapper.writeValueAsString(hero(i)));
+            writer.write('\n');
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: HeroDataGenerator <count> <output file> [seed]");
+            System.exit(1);
+        }
+        var count = Integer.parseInt(args[0]);
+        var output = Path.of(args[1]);
+        var seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            new HeroDataGenerator(seed).writeNdjson(count, writer, new ObjectMapper());
+        }
+        System.out.printf("%d heroes written to %s%n", count, output.toAbsolutePath());
+    }
+
+    // Number of successes before the first failure, capped: most heroes get few values, some get many
+    private static int geometric(Random random, double continueProbability, int max) {
+        int n = 0;
+        while (n < max && random.nextDouble() < continueProbability) {
+            n++;
+        }
+        return n;
+    }
+
+    private static final class Vocabulary {
+
+        private final String[] values;
+        private final double[] cumulative;
+
+        private Vocabulary(String prefix, String[] common, int size) {
+            values = new String[size];
+            for (int rank = 0; rank < size; rank++) {
+                values[rank] = rank < common.length ? common[rank] : prefix + "-" + rank;
+            }
+
+            cumulative = new double[size];
+            double total = 0;
+            for (int rank = 0; rank < size; rank++) {
+                total += 1 / Math.pow(rank + 1, SKEW);
+                cumulative[rank] = total;
+            }
+            for (int rank = 0; rank < size; rank++) {
+                cumulative[rank] /= total;
+            }
+        }
+
+        private String next(Random random) {
+            var index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return values[Math.min(index < 0 ? -index - 1 : index, values.length - 1)];
+        }
+
+        private String[] sample(Random random, int count) {
+            Set<String> picked = new LinkedHashSet<>();
+            // bounded attempts: the head of the distribution repeats a lot
+            for (int attempt = 0; picked.size() < count && attempt < count * 4; attempt++) {
+                picked.add(next(random));
+            }
+            return picked.toArray(new String[0]);
+        }
+
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.dataguard.superherochallenge.benchmark;
+
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.entity.Hero;
+import java.util.Random;
+
+// Deterministic heroes shared by the benchmarks, so runs over the same dataset can be compared
+final class HeroFixtures {
+
+    static final String[] POWERS = {"flight", "super-strength", "healing", "telepathy", "invisibility",
+        "genius-intelligence", "photon-blast", "speed", "wall-crawling", "time-travel"};
+    static final String[] WEAPONS = {"arc-reactor", "shield", "hammer", "web-shooter", "bow", "claws", "sword"};
+    static final String[] ASSOCIATIONS = {"avengers", "x-men", "fantastic-four", "guardians", "defenders",
+        "kree", "skrulls", "shield-agency"};
+
+    private HeroFixtures() {
+    }
+
+    static String name(int i) {
+        return "Hero " + i;
+    }
+
+    static HeroDto heroDto(int i) {
+        var random = new Random(i);
+        return HeroDto.builder()
+            .name(name(i))
+            .alias("Alias " + i)
+            .origin("Origin story of hero number " + i)
+            .powers(pick(random, POWERS, 3))
+            .weapons(pick(random, WEAPONS, 2))
+            .associations(pick(random, ASSOCIATIONS, 3))
+            .build();
+    }
+
+    static Hero hero(int i) {
+        var heroDto = heroDto(i);
+        return Hero.builder()
+            .id((long) i)
+            .name(heroDto.getName())
+            .alias(heroDto.getAlias())
+            .origin(heroDto.getOrigin())
+            .powers(heroDto.getPowers())
+            .weapons(heroDto.getWeapons())
+            .associations(heroDto.getAssociations())
+            .build();
+    }
+
+    private static String[] pick(Random random, String[] values, int max) {
+        var picked = new String[1 + random.nextInt(max)];
+        for (int i = 0; i < picked.length; i++) {
+            picked[i] = values[random.nextInt(values.length)];
+        }
+        return picked;
+    }
+
+}
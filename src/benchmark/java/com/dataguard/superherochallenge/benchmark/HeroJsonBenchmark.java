@@ -0,0 +1,62 @@
+package com.dataguard.superherochallenge.benchmark;
+
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeroJsonBenchmark {
+
+    private ObjectWriter heroWriter;
+    private ObjectReader heroReader;
+    private HeroDto heroDto;
+    private byte[] heroJson;
+
+    @Setup
+    public void setup() throws IOException {
+        // same defaults and modules Spring Boot configures for the application's ObjectMapper
+        var objectMapper = Jackson2ObjectMapperBuilder.json()
+            .modulesToInstall(new ParameterNamesModule(JsonCreator.Mode.DEFAULT))
+            .build();
+        heroWriter = objectMapper.writerFor(HeroDto.class);
+        heroReader = objectMapper.readerFor(HeroDto.class);
+        heroDto = HeroFixtures.heroDto(1);
+        heroJson = heroWriter.writeValueAsBytes(heroDto);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return heroWriter.writeValueAsBytes(heroDto);
+    }
+
+    @Benchmark
+    public HeroDto deserialize() throws IOException {
+        return heroReader.readValue(heroJson);
+    }
+
+    @Benchmark
+    public HeroDto roundTrip() throws IOException {
+        return heroReader.readValue(heroWriter.writeValueAsBytes(heroDto));
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.dataguard.superherochallenge.benchmark;
+
+import com.dataguard.superherochallenge.SuperHeroChallengeApplication;
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.entity.HeroProperty;
+import com.dataguard.superherochallenge.repository.HeroRepository;
+import com.dataguard.superherochallenge.repository.RowCounter;
+import com.dataguard.superherochallenge.service.HeroImportService;
+import com.dataguard.superherochallenge.service.HeroService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+// The same heroes stored with each hero.storage.layout: inserts, reads by id and searches by power answered by the
+// database rather than by HeroPropertyIndex, which is the path taken until the index is built. Inserts also print
+// the rows written per hero.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeroLayoutBenchmark {
+
+    @Param({"collections", "compact"})
+    public String layout;
+
+    @Param({"10000"})
+    public int heroes;
+
+    private ConfigurableApplicationContext context;
+    private HeroService heroService;
+    private HeroRepository heroRepository;
+    private RowCounter rowCounter;
+    private List<Long> ids;
+    private long inserts;
+    private long rowsBefore;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        rowCounter = new RowCounter();
+        context = new SpringApplicationBuilder(SuperHeroChallengeApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties("spring.main.banner-mode=off", "logging.level.root=warn")
+            .initializers(applicationContext -> applicationContext.getBeanFactory().addBeanPostProcessor(rowCounter))
+            // an argument, since default properties don't override application.yml
+            .run("--hero.storage.layout=" + layout);
+        heroService = context.getBean(HeroService.class);
+        heroRepository = context.getBean(HeroRepository.class);
+
+        var objectMapper = context.getBean(ObjectMapper.class);
+        var ndjson = IntStream.range(0, heroes)
+            .mapToObj(i -> write(objectMapper, HeroFixtures.heroDto(i)))
+            .collect(Collectors.joining("\n"));
+        context.getBean(HeroImportService.class)
+            .importHeroes(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+        ids = heroRepository.findIdsAfter(0L, PageRequest.of(0, heroes));
+        rowsBefore = rowCounter.rows();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (inserts > 0) {
+            System.out.printf("%n%s layout: %.1f rows written per hero inserted%n",
+                layout, (double) (rowCounter.rows() - rowsBefore) / inserts);
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public HeroDto insertHero() {
+        return heroService.addNewHero(HeroFixtures.heroDto(heroes + (int) inserts++));
+    }
+
+    @Benchmark
+    public Hero findHeroById() {
+        return heroService.findHeroById(ids.get(ThreadLocalRandom.current().nextInt(ids.size())));
+    }
+
+    @Benchmark
+    public List<Hero> findHeroesByPower() {
+        return heroRepository.findByProperty(HeroProperty.POWER, randomPower());
+    }
+
+    // A page of 50 heroes having a power, as the paged search by property reads it before the index is built
+    @Benchmark
+    public List<Hero> findHeroesByPowerPage() {
+        return heroRepository.findByIdInOrderById(
+            heroRepository.findIdsByPropertyAfter(HeroProperty.POWER, randomPower(), 0L, 50));
+    }
+
+    private static String randomPower() {
+        return HeroFixtures.POWERS[ThreadLocalRandom.current().nextInt(HeroFixtures.POWERS.length)];
+    }
+
+    private static String write(ObjectMapper objectMapper, HeroDto heroDto) {
+        try {
+            return objectMapper.writeValueAsString(heroDto);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,231 @@
+package com.dataguard.superherochallenge.benchmark;
+
+import com.dataguard.superherochallenge.SuperHeroChallengeApplication;
+import com.dataguard.superherochallenge.util.CursorUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// Closed-loop load test of the HTTP endpoints: for every dataset size the application is started with an empty
+// database, filled through the bulk endpoint with HeroDataGenerator heroes, and every endpoint is called by
+// load.concurrency clients, each sending its next request as soon as the previous response is read.
+//
+// load.threads lists the request threading models to compare: "platform" (Tomcat's thread pool), "virtual"
+// (hero.virtual-threads.enabled, Java 21+) and/or "reactive" (ReactiveHeroApplication, WebFlux and R2DBC on the
+// same schema). Each model gets its own application instance and dataset.
+//
+// Latencies are recorded in microseconds and written as HdrHistogram percentile distributions (.hgrm) to
+// load.output/<threads>/<size>/<endpoint>.hgrm, with one summary line per model, endpoint and size in
+// load.output/summary.csv.
+public class HeroLoadTest {
+
+    private static final int IMPORT_CHUNK = 50_000;
+    private static final String REACTIVE_APPLICATION =
+        "com.dataguard.superherochallenge.reactive.ReactiveHeroApplication";
+    private static final long HIGHEST_LATENCY_MICROS = Duration.ofMinutes(1).toNanos() / 1000;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+    private final HeroDataGenerator generator = new HeroDataGenerator(42L);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final int concurrency = Integer.getInteger("load.concurrency", 16);
+    private final Duration warmup = Duration.ofSeconds(Long.getLong("load.warmup", 10));
+    private final Duration duration = Duration.ofSeconds(Long.getLong("load.duration", 30));
+    private final Path output = Path.of(System.getProperty("load.output", "target/load-test"));
+    private final String[] threads = System.getProperty("load.threads", "platform").split(",");
+
+    public static void main(String[] args) throws Exception {
+        var sizes = System.getProperty("load.sizes", "10000,100000,1000000").split(",");
+        new HeroLoadTest().run(sizes);
+    }
+
+    private void run(String[] sizes) throws Exception {
+        Files.createDirectories(output);
+        var summary = new ArrayList<String>();
+        summary.add("threads,heroes,endpoint,requests,errors,throughput_per_second,p50_ms,p99_ms,p999_ms,max_ms");
+
+        for (var model : threads) {
+            var mode = model.trim();
+            for (var size : sizes) {
+                var heroes = Integer.parseInt(size.trim());
+                var context = start(mode, heroes);
+                try {
+                    var port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                    var baseUrl = "http://localhost:" + port + "/api/v1/heroes";
+
+                    importHeroes(baseUrl, heroes);
+                    for (var endpoint : endpoints(baseUrl, heroes).entrySet()) {
+                        summary.add(measure(mode, heroes, endpoint.getKey(), endpoint.getValue()));
+                    }
+                } finally {
+                    context.close();
+                }
+            }
+        }
+
+        Files.write(output.resolve("summary.csv"), summary, StandardCharsets.UTF_8);
+        System.out.println("Reports written to " + output.toAbsolutePath());
+    }
+
+    private ConfigurableApplicationContext start(String mode, int heroes) {
+        var database = "load-" + mode + "-" + heroes;
+        if ("reactive".equals(mode)) {
+            return new SpringApplicationBuilder(reactiveApplication())
+                .profiles("reactive")
+                .properties("server.port=0", "spring.main.banner-mode=off", "logging.level.root=warn",
+                    "spring.r2dbc.url=r2dbc:h2:mem:///" + database + "?options=DB_CLOSE_DELAY=-1")
+                .run();
+        }
+        return new SpringApplicationBuilder(SuperHeroChallengeApplication.class)
+            .properties("server.port=0", "spring.main.banner-mode=off", "logging.level.root=warn",
+                "spring.datasource.url=jdbc:h2:mem:" + database,
+                "hero.virtual-threads.enabled=" + "virtual".equals(mode))
+            .run();
+    }
+
+    // Only built with the reactive profile, which the benchmarks don't need otherwise
+    private static Class<?> reactiveApplication() {
+        try {
+            return Class.forName(REACTIVE_APPLICATION);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("The reactive variant isn't built: run with -P benchmark,reactive", e);
+        }
+    }
+
+    // Each endpoint builds its next request from a random hero or a skewed property value
+    private Map<String, Function<Random, String>> endpoints(String baseUrl, int heroes) {
+        Map<String, Function<Random, String>> endpoints = new LinkedHashMap<>();
+        endpoints.put("find-by-name", random -> baseUrl + "/names?name=" + HeroDataGenerator.name(random.nextInt(heroes)));
+        endpoints.put("find-by-unknown-name", random -> baseUrl + "/names?name=Nobody-" + random.nextInt(heroes));
+        endpoints.put("find-page", random -> baseUrl + "?limit=50&after=" + CursorUtil.encode((long) random.nextInt(heroes)));
+        endpoints.put("find-by-property", random -> baseUrl + "/properties?property=power&limit=50&value="
+            + encode(generator.randomPower(random)));
+        endpoints.put("find-by-query", random -> baseUrl + "/properties/query?limit=50&q="
+            + encode("power=" + generator.randomPower(random) + " AND association=" + generator.randomAssociation(random)));
+        return endpoints;
+    }
+
+    private void importHeroes(String baseUrl, int heroes) throws IOException, InterruptedException {
+        var start = System.nanoTime();
+        for (int from = 0; from < heroes; from += IMPORT_CHUNK) {
+            var to = Math.min(from + IMPORT_CHUNK, heroes);
+            var ndjson = new StringWriter();
+            generator.heroes(from, to).forEach(heroDto -> {
+                try {
+                    ndjson.write(objectMapper.writeValueAsString(heroDto));
+                    ndjson.write('\n');
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            var response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/_bulk"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(ndjson.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Bulk import failed: " + response.statusCode() + " " + response.body());
+            }
+        }
+        System.out.printf("%d heroes imported in %d s%n", heroes, Duration.ofNanos(System.nanoTime() - start).toSeconds());
+    }
+
+    private String measure(String mode, int heroes, String endpoint, Function<Random, String> nextUrl) throws Exception {
+        drive(nextUrl, warmup, new Recorder(HIGHEST_LATENCY_MICROS, 3), new LongAdder());
+
+        var recorder = new Recorder(HIGHEST_LATENCY_MICROS, 3);
+        var errors = new LongAdder();
+        var elapsed = drive(nextUrl, duration, recorder, errors);
+        Histogram histogram = recorder.getIntervalHistogram();
+
+        var directory = Files.createDirectories(output.resolve(mode).resolve(String.valueOf(heroes)));
+        try (var out = new PrintStream(Files.newOutputStream(directory.resolve(endpoint + ".hgrm")), false,
+            StandardCharsets.UTF_8)) {
+            // scaled to milliseconds
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+
+        var throughput = histogram.getTotalCount() / (elapsed.toNanos() / 1e9);
+        var line = String.format("%s,%d,%s,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f", mode, heroes, endpoint, histogram.getTotalCount(),
+            errors.sum(), throughput, millis(histogram, 50), millis(histogram, 99), millis(histogram, 99.9),
+            histogram.getMaxValue() / 1000.0);
+        System.out.printf("%-8s %8d heroes  %-22s %9.1f req/s  p50 %8.3f ms  p99 %8.3f ms  p99.9 %8.3f ms  errors %d%n",
+            mode, heroes, endpoint, throughput, millis(histogram, 50), millis(histogram, 99), millis(histogram, 99.9),
+            errors.sum());
+        return line;
+    }
+
+    private Duration drive(Function<Random, String> nextUrl, Duration length, Recorder recorder, LongAdder errors)
+        throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        var start = System.nanoTime();
+        var deadline = start + length.toNanos();
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                running.add(clients.submit(() -> {
+                    var random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        var request = HttpRequest.newBuilder(URI.create(nextUrl.apply(random))).GET().build();
+                        var sent = System.nanoTime();
+                        try {
+                            var status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            // a missing name is an expected 404, anything else outside 2xx/404 is an error
+                            if (status >= 300 && status != 404) {
+                                errors.increment();
+                            }
+                        } catch (IOException e) {
+                            errors.increment();
+                        }
+                        recorder.recordValue(Math.min((System.nanoTime() - sent) / 1000, HIGHEST_LATENCY_MICROS));
+                    }
+                    return null;
+                }));
+            }
+            for (var client : running) {
+                client.get();
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.dataguard.superherochallenge.benchmark;
+
+import com.dataguard.superherochallenge.entity.HeroProperty;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeroPropertyBenchmark {
+
+    @Param({"power", "association", "car"})
+    public String property;
+
+    @Benchmark
+    public HeroProperty adapterStringToEnum() {
+        return HeroProperty.adapterStringToEnum(property);
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.dataguard.superherochallenge.benchmark;
+
+import com.dataguard.superherochallenge.SuperHeroChallengeApplication;
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.entity.HeroProperty;
+import com.dataguard.superherochallenge.index.HeroPropertyIndex;
+import com.dataguard.superherochallenge.repository.HeroRepository;
+import com.dataguard.superherochallenge.service.HeroImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// A search by power answered by the database and by HeroPropertyIndex, then the heroes read by their ids
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeroPropertyIndexBenchmark {
+
+    @Param({"1000", "10000"})
+    public int heroes;
+
+    private ConfigurableApplicationContext context;
+    private HeroRepository heroRepository;
+    private HeroPropertyIndex heroPropertyIndex;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(SuperHeroChallengeApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties("spring.main.banner-mode=off", "logging.level.root=warn")
+            .run();
+        heroRepository = context.getBean(HeroRepository.class);
+        heroPropertyIndex = context.getBean(HeroPropertyIndex.class);
+
+        var objectMapper = context.getBean(ObjectMapper.class);
+        var ndjson = IntStream.range(0, heroes)
+            .mapToObj(i -> write(objectMapper, HeroFixtures.heroDto(i)))
+            .collect(Collectors.joining("\n"));
+        context.getBean(HeroImportService.class)
+            .importHeroes(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+        if (!heroPropertyIndex.isReady()) {
+            throw new IllegalStateException("HeroPropertyIndex wasn't built on startup");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Hero> findByPowerInDatabase() {
+        return heroRepository.findByProperty(HeroProperty.POWER, randomPower());
+    }
+
+    @Benchmark
+    public List<Hero> findByPowerInIndex() {
+        return heroRepository.findByIdInOrderById(heroPropertyIndex.find(HeroProperty.POWER, randomPower()));
+    }
+
+    // The index alone, without reading the heroes
+    @Benchmark
+    public List<Long> findIdsByPowerInIndex() {
+        return heroPropertyIndex.find(HeroProperty.POWER, randomPower());
+    }
+
+    private static String randomPower() {
+        return HeroFixtures.POWERS[ThreadLocalRandom.current().nextInt(HeroFixtures.POWERS.length)];
+    }
+
+    private static String write(ObjectMapper objectMapper, HeroDto heroDto) {
+        try {
+            return objectMapper.writeValueAsString(heroDto);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.dataguard.superherochallenge.benchmark;
+
+import com.dataguard.superherochallenge.SuperHeroChallengeApplication;
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.dto.HeroPageDto;
+import com.dataguard.superherochallenge.service.HeroImportService;
+import com.dataguard.superherochallenge.service.HeroService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// Full service calls against the in-memory H2, with the application context started once per dataset size
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeroServiceBenchmark {
+
+    @Param({"1000", "10000"})
+    public int heroes;
+
+    private ConfigurableApplicationContext context;
+    private HeroService heroService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(SuperHeroChallengeApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties("spring.main.banner-mode=off", "logging.level.root=warn")
+            .run();
+        heroService = context.getBean(HeroService.class);
+
+        var objectMapper = context.getBean(ObjectMapper.class);
+        var ndjson = IntStream.range(0, heroes)
+            .mapToObj(i -> write(objectMapper, HeroFixtures.heroDto(i)))
+            .collect(Collectors.joining("\n"));
+        context.getBean(HeroImportService.class)
+            .importHeroes(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<HeroDto> findHeroByName() {
+        return heroService.findHeroByName(HeroFixtures.name(ThreadLocalRandom.current().nextInt(heroes)));
+    }
+
+    @Benchmark
+    public List<HeroDto> findHeroesByProperty() {
+        return heroService.findHeroesByProperty("power", randomOf(HeroFixtures.POWERS));
+    }
+
+    @Benchmark
+    public List<HeroDto> findHeroesByQuery() {
+        return heroService.findHeroesByQuery("power=" + randomOf(HeroFixtures.POWERS)
+            + " AND association=" + randomOf(HeroFixtures.ASSOCIATIONS));
+    }
+
+    @Benchmark
+    public HeroPageDto findHeroesPage() {
+        return heroService.findHeroesPage(null, 50);
+    }
+
+    @Benchmark
+    public List<HeroDto> findAllHeroes() {
+        return heroService.findAllHeroes();
+    }
+
+    private static String randomOf(String[] values) {
+        return values[ThreadLocalRandom.current().nextInt(values.length)];
+    }
+
+    private static String write(ObjectMapper objectMapper, HeroDto heroDto) {
+        try {
+            return objectMapper.writeValueAsString(heroDto);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+package com.dataguard.superherochallenge.benchmark;
+
+import com.dataguard.superherochallenge.SuperHeroChallengeApplication;
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.dto.HeroPatchDto;
+import com.dataguard.superherochallenge.dto.HeroValuesPatchDto;
+import com.dataguard.superherochallenge.metrics.StatementCounter;
+import com.dataguard.superherochallenge.repository.RowCounter;
+import com.dataguard.superherochallenge.service.HeroImportService;
+import com.dataguard.superherochallenge.service.HeroService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// Write amplification of the same change, a new alias and one power added or removed, through the PUT path
+// (the hero rebuilt and merged) and the PATCH path (the managed hero changed in place). Besides the time,
+// every run prints the statements prepared and the rows written per operation.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeroWriteBenchmark {
+
+    private static final String POWER = "benchmark-power";
+
+    @Param({"1000"})
+    public int heroes;
+
+    private ConfigurableApplicationContext context;
+    private HeroService heroService;
+    private RowCounter rowCounter;
+    private long[] ids;
+    private long operations;
+    private long statements;
+    private long rowsBefore;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        rowCounter = new RowCounter();
+        context = new SpringApplicationBuilder(SuperHeroChallengeApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties("spring.main.banner-mode=off", "logging.level.root=warn")
+            .initializers(applicationContext -> applicationContext.getBeanFactory().addBeanPostProcessor(rowCounter))
+            .run();
+        heroService = context.getBean(HeroService.class);
+
+        var objectMapper = context.getBean(ObjectMapper.class);
+        var ndjson = IntStream.range(0, heroes)
+            .mapToObj(i -> write(objectMapper, HeroFixtures.heroDto(i)))
+            .collect(Collectors.joining("\n"));
+        context.getBean(HeroImportService.class)
+            .importHeroes(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+        ids = IntStream.range(0, heroes)
+            .mapToLong(i -> heroService.findHeroByName(HeroFixtures.name(i)).orElseThrow().getId())
+            .toArray();
+        rowsBefore = rowCounter.rows();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n%.1f statements and %.1f rows written per operation%n",
+            (double) statements / operations, (double) (rowCounter.rows() - rowsBefore) / operations);
+        context.close();
+    }
+
+    // The whole hero, as a PUT sends it
+    @Benchmark
+    public HeroDto updateHero() {
+        var i = (int) (operations % heroes);
+        var added = (operations / heroes) % 2 == 0;
+        var powers = HeroFixtures.heroDto(i).getPowers();
+        var heroDto = HeroDto.builder()
+            .alias(alias(added))
+            .powers(added ? Stream.concat(Arrays.stream(powers), Stream.of(POWER)).toArray(String[]::new) : powers)
+            .build();
+        return count(() -> heroService.updateHero(ids[i], heroDto));
+    }
+
+    // Only the change, as a PATCH sends it
+    @Benchmark
+    public HeroDto patchHero() {
+        var i = (int) (operations % heroes);
+        var added = (operations / heroes) % 2 == 0;
+        var values = HeroValuesPatchDto.builder();
+        var heroPatchDto = HeroPatchDto.builder()
+            .alias(alias(added))
+            .powers((added ? values.add(new String[]{POWER}) : values.remove(new String[]{POWER})).build())
+            .build();
+        return count(() -> heroService.patchHero(ids[i], heroPatchDto, null));
+    }
+
+    private HeroDto count(Supplier<HeroDto> write) {
+        try (var count = StatementCounter.start()) {
+            var heroDto = write.get();
+            statements += count.getStatements();
+            operations++;
+            return heroDto;
+        }
+    }
+
+    private static String alias(boolean added) {
+        return added ? "Alias with the benchmark power" : "Alias without the benchmark power";
+    }
+
+    private static String write(ObjectMapper objectMapper, HeroDto heroDto) {
+        try {
+            return objectMapper.writeValueAsString(heroDto);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -2,8 +2,11 @@ package com.dataguard.superherochallenge;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 
-@SpringBootApplication
+// R2DBC is only used by the reactive variant (ReactiveHeroApplication): a ConnectionFactory here
+// would stop Spring Boot from creating the DataSource behind JPA
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class SuperHeroChallengeApplication {
 
 	public static void main(String[] args) {
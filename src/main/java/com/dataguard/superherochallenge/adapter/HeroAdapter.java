@@ -1,7 +1,12 @@
 package com.dataguard.superherochallenge.adapter;
 
 import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.dto.HeroPatchDto;
+import com.dataguard.superherochallenge.dto.HeroValuesPatchDto;
 import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.entity.HeroProperty;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.stereotype.Component;
 
@@ -21,6 +26,8 @@ public class HeroAdapter {
 
     public HeroDto adapterHeroToHeroDto(Hero hero) {
         return HeroDto.builder()
+            .id(hero.getId())
+            .version(hero.getVersion())
             .name(hero.getName())
             .alias(hero.getAlias())
             .origin(hero.getOrigin())
@@ -33,6 +40,8 @@ public class HeroAdapter {
     public Hero adapterHeroToBeUpdated(Hero hero, HeroDto heroDto) {
         return Hero.builder()
             .id(hero.getId())
+            // the version read is the one checked when the update is written
+            .version(hero.getVersion())
             .name(checkIfIsNull(heroDto.getName()) ? heroDto.getName() : hero.getName())
             .alias(checkIfIsNull(heroDto.getAlias()) ? heroDto.getAlias() : hero.getAlias())
             .origin(checkIfIsNull(heroDto.getOrigin()) ? heroDto.getOrigin() : hero.getOrigin())
@@ -42,6 +51,30 @@ public class HeroAdapter {
             .build();
     }
 
+    // Changes the managed hero in place, so only the changed columns are updated. The lists are ordered by their
+    // position: a value added is one row inserted, but a value removed rewrites every position after it
+    public void adapterPatchToHero(Hero hero, HeroPatchDto heroPatchDto) {
+        Optional.ofNullable(heroPatchDto.getName()).ifPresent(hero::setName);
+        Optional.ofNullable(heroPatchDto.getAlias()).ifPresent(hero::setAlias);
+        Optional.ofNullable(heroPatchDto.getOrigin()).ifPresent(hero::setOrigin);
+        patchValues(hero.values(HeroProperty.POWER), heroPatchDto.getPowers());
+        patchValues(hero.values(HeroProperty.WEAPON), heroPatchDto.getWeapons());
+        patchValues(hero.values(HeroProperty.ASSOCIATION), heroPatchDto.getAssociations());
+    }
+
+    // Removals first, so a value both removed and added moves to the end
+    private void patchValues(List<String> values, HeroValuesPatchDto patch) {
+        if (Optional.ofNullable(patch).isEmpty()) {
+            return;
+        }
+        Optional.ofNullable(patch.getRemove())
+            .ifPresent(remove -> values.removeAll(Arrays.asList(remove)));
+        Optional.ofNullable(patch.getAdd()).stream()
+            .flatMap(Arrays::stream)
+            .filter(value -> !values.contains(value))
+            .forEach(values::add);
+    }
+
     private boolean checkIfIsNull(Object field) {
         return Optional.ofNullable(field).isPresent();
     }
@@ -0,0 +1,93 @@
+package com.dataguard.superherochallenge.cache;
+
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Bounded cache of name lookups, keeping misses (empty) as well as hits.
+// A lookup that raced with an invalidation isn't stored, so a write is never hidden by an older read.
+// The names of the cached hits are kept by id as well, for the heroes deleted by id.
+@Component
+public class HeroNameCache {
+
+    private final Cache<String, Optional<HeroDto>> cache;
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    // not a monitor: a virtual thread waiting for it on Java 21 would pin its carrier thread
+    private final Lock lock = new ReentrantLock();
+
+    public HeroNameCache(@Value("${hero.name-cache.maximum-size:10000}") long maximumSize,
+                         @Value("${hero.name-cache.time-to-live:5m}") Duration timeToLive) {
+        this.cache = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(timeToLive.toMillis(), TimeUnit.MILLISECONDS)
+            .removalListener((RemovalNotification<String, Optional<HeroDto>> removed) -> removed.getValue()
+                .map(HeroDto::getId)
+                .ifPresent(id -> names.remove(id, removed.getKey())))
+            .build();
+    }
+
+    public Optional<HeroDto> get(String name, Function<String, Optional<HeroDto>> loader) {
+        var cached = cache.getIfPresent(name);
+        if (cached != null) {
+            return cached;
+        }
+
+        var startedAt = generation.get();
+        var loaded = loader.apply(name);
+        lock.lock();
+        try {
+            if (generation.get() == startedAt) {
+                cache.put(name, loaded);
+                loaded.map(HeroDto::getId).ifPresent(id -> names.put(id, name));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return loaded;
+    }
+
+    public void invalidate(String... names) {
+        lock.lock();
+        try {
+            generation.incrementAndGet();
+            for (var name : names) {
+                if (name != null) {
+                    cache.invalidate(name);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // For heroes deleted without being loaded: their names are unknown, so the cached hits are found by id
+    public void invalidateIds(Collection<Long> ids) {
+        lock.lock();
+        try {
+            generation.incrementAndGet();
+            for (var id : ids) {
+                var name = names.remove(id);
+                if (name != null) {
+                    cache.invalidate(name);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.dataguard.superherochallenge.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+// Final JSON bodies of the unpaged reads, with their gzip version and their ETag, so a hit is written as is
+// (or answered with 304): no query, no mapping and no serialization. Bounded by the bytes held and by the
+// number of entries: every entry weighs at least maximum-size / maximum-entries, so the one bound enforces both.
+// Every write bumps the generation and drops all of them, since any write can change any of these lists;
+// a body built while a write happened isn't stored.
+@Component
+public class HeroResponseCache {
+
+    // the entry, the response object, the array headers and the ETag, roughly
+    static final int ENTRY_OVERHEAD = 256;
+
+    private final boolean enabled;
+    private final Cache<String, CachedResponse> cache;
+    private final AtomicLong generation = new AtomicLong();
+    private final Lock lock = new ReentrantLock();
+
+    public HeroResponseCache(@Value("${hero.response-cache.enabled:true}") boolean enabled,
+                             @Value("${hero.response-cache.maximum-size:64MB}") DataSize maximumSize,
+                             @Value("${hero.response-cache.maximum-entries:1000}") long maximumEntries) {
+        this.enabled = enabled;
+        var minimumWeight = maximumSize.toBytes() / maximumEntries;
+        this.cache = CacheBuilder.newBuilder()
+            .maximumWeight(maximumSize.toBytes())
+            .weigher((String key, CachedResponse response) ->
+                (int) Math.min(Integer.MAX_VALUE, Math.max(minimumWeight, weight(key, response))))
+            .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Optional<CachedResponse> getIfPresent(String key) {
+        return enabled ? Optional.ofNullable(cache.getIfPresent(key)) : Optional.empty();
+    }
+
+    // Read before the version of a body is, and given back to put: a body whose generation is gone isn't stored
+    public long generation() {
+        return generation.get();
+    }
+
+    public CachedResponse put(String key, long startedAt, String eTag, byte[] json) {
+        if (!enabled) {
+            return new CachedResponse(json, null, eTag);
+        }
+        var gzip = gzip(json);
+        // tiny bodies get bigger when compressed
+        var loaded = new CachedResponse(json, gzip.length < json.length ? gzip : null, eTag);
+        lock.lock();
+        try {
+            if (generation.get() == startedAt) {
+                cache.put(key, loaded);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return loaded;
+    }
+
+    public void invalidate() {
+        lock.lock();
+        try {
+            generation.incrementAndGet();
+            cache.invalidateAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static long weight(String key, CachedResponse response) {
+        return ENTRY_OVERHEAD + key.length() + response.size();
+    }
+
+    private static byte[] gzip(byte[] json) {
+        var bytes = new ByteArrayOutputStream(json.length / 4);
+        try (var out = new GZIPOutputStream(bytes)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CachedResponse {
+
+        private final byte[] json;
+
+        // null when compressing doesn't pay off
+        private final byte[] gzip;
+
+        // the aggregate version read before the body, never newer than it
+        private final String eTag;
+
+        private int size() {
+            return json.length + (gzip == null ? 0 : gzip.length);
+        }
+
+    }
+
+}
@@ -1,23 +1,56 @@
 package com.dataguard.superherochallenge.controller;
 
+import com.dataguard.superherochallenge.cache.HeroResponseCache;
+import com.dataguard.superherochallenge.cache.HeroResponseCache.CachedResponse;
+import com.dataguard.superherochallenge.dto.BulkDeleteResultDto;
+import com.dataguard.superherochallenge.dto.BulkImportResultDto;
 import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.dto.HeroMultiGetDto;
+import com.dataguard.superherochallenge.dto.HeroMultiGetItemDto;
+import com.dataguard.superherochallenge.dto.HeroPageDto;
+import com.dataguard.superherochallenge.dto.HeroPatchDto;
+import com.dataguard.superherochallenge.metrics.RequestTimings;
+import com.dataguard.superherochallenge.metrics.RequestTimings.Phase;
+import com.dataguard.superherochallenge.service.HeroImportService;
+import com.dataguard.superherochallenge.service.HeroMultiGetService;
 import com.dataguard.superherochallenge.service.HeroService;
+import com.dataguard.superherochallenge.util.ETagUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @RestController
@@ -27,28 +60,116 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 public class HeroController {
 
     private static final String MESSAGE = "is missing and is required";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final String LIMIT_MESSAGE = "Limit must be between 1 and 1000";
+    private static final String ALL_HEROES = "*";
+    private static final String GZIP = "gzip";
+    private static final String X_GZIP = "x-gzip";
+    private static final String IDENTITY = "identity";
+    private static final String ANY_CODING = "*";
+    private static final Pattern Q_VALUE = Pattern.compile("0(\\.\\d{0,3})?|1(\\.0{0,3})?");
 
     private final HeroService heroService;
+    private final HeroImportService heroImportService;
+    private final HeroMultiGetService heroMultiGetService;
+    private final ObjectMapper objectMapper;
+    private final HeroResponseCache heroResponseCache;
 
     @GetMapping
-    public ResponseEntity<List<HeroDto>> findAllHeroes() {
-        return ResponseEntity.ok(heroService.findAllHeroes());
+    public ResponseEntity<?> findAllHeroes(@RequestParam(value = "after", required = false) String after,
+                                           @RequestParam(value = "limit", required = false)
+                                           @Min(value = 1, message = LIMIT_MESSAGE)
+                                           @Max(value = 1000, message = LIMIT_MESSAGE) Integer limit,
+                                           @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                           String acceptEncoding,
+                                           WebRequest request) {
+        if (isPageRequest(after, limit)) {
+            return toPageResponse(heroService.findHeroesPage(after, pageSize(limit)));
+        }
+        return toCachedResponse(ALL_HEROES, heroService::findAllHeroesVersion, heroService::findAllHeroes,
+            acceptEncoding, request);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllHeroes() {
+        var writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        // the body is written by another thread, which must report to this request's timings
+        var timings = RequestTimings.current();
+
+        StreamingResponseBody body = outputStream -> {
+            try (var scope = RequestTimings.bind(timings);
+                 var generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                // lines are separated by '\n' only, not by Jackson's default space between root values
+                generator.setRootValueSeparator(null);
+                heroService.streamAllHeroes(heroDto -> {
+                    var startedAt = RequestTimings.start();
+                    try {
+                        writer.writeValue(generator, heroDto);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } finally {
+                        RequestTimings.stop(Phase.SERIALIZATION, startedAt);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @GetMapping("/names")
     public ResponseEntity<HeroDto> findHeroByName(@RequestParam(value = "name")
-                                                  @NotBlank(message = "Name " + MESSAGE) String name) {
-        var heroDto = heroService.findHeroByName(name);
-        return ResponseEntity.ok(heroDto.orElse(null));
+                                                  @NotBlank(message = "Name " + MESSAGE) String name,
+                                                  WebRequest request) {
+        // Served from the name cache, already mapped: a revalidation costs neither a query nor a mapping
+        var heroDto = heroService.findHeroByName(name).orElse(null);
+        var eTag = eTag(heroDto);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return withETag(ResponseEntity.ok(), eTag).body(heroDto);
+    }
+
+    // Resolves many names or ids in one request; misses are reported in place, in the order requested
+    @PostMapping(value = "/_mget")
+    public ResponseEntity<List<HeroMultiGetItemDto>> findHeroes(@RequestBody HeroMultiGetDto heroMultiGetDto) {
+        return ResponseEntity.ok(heroMultiGetService.findHeroes(heroMultiGetDto));
     }
 
     @GetMapping(value = "/properties")
-    public ResponseEntity<List<HeroDto>> findHeroesByProperty(@RequestParam(value = "property")
-                                                              @NotBlank(message = "Property " + MESSAGE) String property,
-                                                              @RequestParam(value = "value")
-                                                              @NotBlank(message = "Value " + MESSAGE) String value) {
-        var heroes = heroService.findHeroesByProperty(property, value);
-        return ResponseEntity.ok(heroes);
+    public ResponseEntity<?> findHeroesByProperty(@RequestParam(value = "property")
+                                                  @NotBlank(message = "Property " + MESSAGE) String property,
+                                                  @RequestParam(value = "value")
+                                                  @NotBlank(message = "Value " + MESSAGE) String value,
+                                                  @RequestParam(value = "after", required = false)
+                                                  String after,
+                                                  @RequestParam(value = "limit", required = false)
+                                                  @Min(value = 1, message = LIMIT_MESSAGE)
+                                                  @Max(value = 1000, message = LIMIT_MESSAGE) Integer limit,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                                  String acceptEncoding,
+                                                  WebRequest request) {
+        if (isPageRequest(after, limit)) {
+            return toPageResponse(heroService.findHeroesByPropertyPage(property, value, after, pageSize(limit)));
+        }
+        return toCachedResponse(property + '=' + value,
+            () -> heroService.findHeroesByPropertyVersion(property, value),
+            () -> heroService.findHeroesByProperty(property, value), acceptEncoding, request);
+    }
+
+    @GetMapping(value = "/properties/query")
+    public ResponseEntity<List<HeroDto>> findHeroesByQuery(@RequestParam(value = "q")
+                                                           @NotBlank(message = "Query " + MESSAGE) String query,
+                                                           @RequestParam(value = "after", required = false)
+                                                           String after,
+                                                           @RequestParam(value = "limit", required = false)
+                                                           @Min(value = 1, message = LIMIT_MESSAGE)
+                                                           @Max(value = 1000, message = LIMIT_MESSAGE) Integer limit) {
+        if (isPageRequest(after, limit)) {
+            return toPageResponse(heroService.findHeroesByQueryPage(query, after, pageSize(limit)));
+        }
+        return ResponseEntity.ok(heroService.findHeroesByQuery(query));
     }
 
     @PostMapping
@@ -56,13 +177,29 @@ public class HeroController {
         heroDto = heroService.addNewHero(heroDto);
         URI uri = ServletUriComponentsBuilder.fromCurrentRequest()
             .path("/{name}").buildAndExpand(heroDto.getName()).toUri();
-        return ResponseEntity.created(uri).body(heroDto);
+        return withETag(ResponseEntity.created(uri), eTag(heroDto)).body(heroDto);
+    }
+
+    @PostMapping(value = "/_bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkImportResultDto> importHeroes(InputStream ndjson) {
+        return ResponseEntity.ok(heroImportService.importHeroes(ndjson));
     }
 
     @PutMapping(value = "/{id}")
-    public ResponseEntity<HeroDto> updateHero(@PathVariable(value = "id") Long id, @RequestBody HeroDto heroDto) {
-        heroDto = heroService.updateHero(id, heroDto);
-        return ResponseEntity.ok().body(heroDto);
+    public ResponseEntity<HeroDto> updateHero(@PathVariable(value = "id") Long id, @RequestBody HeroDto heroDto,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                              String ifMatch) {
+        heroDto = heroService.updateHero(id, heroDto, ETagUtil.expectedVersion(id, ifMatch));
+        return withETag(ResponseEntity.ok(), eTag(heroDto)).body(heroDto);
+    }
+
+    @PatchMapping(value = "/{id}")
+    public ResponseEntity<HeroDto> patchHero(@PathVariable(value = "id") Long id,
+                                             @Valid @RequestBody HeroPatchDto heroPatchDto,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                             String ifMatch) {
+        var heroDto = heroService.patchHero(id, heroPatchDto, ETagUtil.expectedVersion(id, ifMatch));
+        return withETag(ResponseEntity.ok(), eTag(heroDto)).body(heroDto);
     }
 
     @DeleteMapping(value = "/{id}")
@@ -71,4 +208,118 @@ public class HeroController {
         return ResponseEntity.noContent().build();
     }
 
+    // Cleanup jobs remove heroes by id, in chunks, without any of them being loaded
+    @DeleteMapping
+    public ResponseEntity<BulkDeleteResultDto> deleteHeroes(@RequestParam(value = "ids")
+                                                            @NotEmpty(message = "Ids " + MESSAGE) List<Long> ids) {
+        return ResponseEntity.ok(heroService.deleteHeroes(ids));
+    }
+
+    private boolean isPageRequest(String after, Integer limit) {
+        return Optional.ofNullable(after).isPresent() || Optional.ofNullable(limit).isPresent();
+    }
+
+    private int pageSize(Integer limit) {
+        return Optional.ofNullable(limit).orElse(DEFAULT_PAGE_SIZE);
+    }
+
+    // The ETag is read before the heroes, so it's never newer than the body it's sent with, and a client
+    // that already has the current list gets its 304 without the heroes being loaded or mapped. It costs a query,
+    // so it's only read for a client revalidating its copy or for a body that may be stored.
+    // Empty lists aren't stored: the keys come from the request, and a value no hero has would take an entry each
+    private ResponseEntity<byte[]> toCachedResponse(String key, Supplier<String> version,
+                                                    Supplier<List<HeroDto>> heroes, String acceptEncoding,
+                                                    WebRequest request) {
+        var cached = heroResponseCache.getIfPresent(key);
+        if (cached.isEmpty()) {
+            var startedAt = heroResponseCache.generation();
+            var revalidated = Optional.ofNullable(request.getHeader(HttpHeaders.IF_NONE_MATCH)).isPresent();
+            var eTag = revalidated || heroResponseCache.isEnabled() ? version.get() : null;
+            if (revalidated && request.checkNotModified(eTag)) {
+                return null;
+            }
+            var body = heroes.get();
+            cached = Optional.of(body.isEmpty()
+                ? new CachedResponse(serialize(body), null, eTag)
+                : heroResponseCache.put(key, startedAt, eTag, serialize(body)));
+        } else if (request.checkNotModified(cached.get().getETag())) {
+            return null;
+        }
+        return toCachedResponse(cached.get(), acceptEncoding);
+    }
+
+    // Cached bodies are already JSON (or gzipped JSON): they're written as bytes, without the JSON converter
+    private ResponseEntity<byte[]> toCachedResponse(CachedResponse cached, String acceptEncoding) {
+        var response = withETag(ResponseEntity.ok(), cached.getETag())
+            .contentType(MediaType.APPLICATION_JSON)
+            .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (Optional.ofNullable(cached.getGzip()).isPresent() && acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(cached.getGzip());
+        }
+        return response.body(cached.getJson());
+    }
+
+    private String eTag(HeroDto heroDto) {
+        return Optional.ofNullable(heroDto)
+            .filter(hero -> Optional.ofNullable(hero.getVersion()).isPresent())
+            .map(hero -> ETagUtil.of(hero.getId(), hero.getVersion()))
+            .orElse(null);
+    }
+
+    private ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder response, String eTag) {
+        Optional.ofNullable(eTag).ifPresent(response::eTag);
+        return response;
+    }
+
+    // RFC 9110 12.5.3: the weights are numbers (q=0, q=0.0 and q=0.000 all refuse a coding), a coding that isn't
+    // listed takes the weight of "*", and the body is only sent as is when gzip is refused or identity is
+    // explicitly preferred. No header at all keeps the body as is.
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (Optional.ofNullable(acceptEncoding).isEmpty()) {
+            return false;
+        }
+        var weights = new HashMap<String, Double>();
+        for (var member : acceptEncoding.split(",")) {
+            var parameters = member.split(";");
+            var coding = parameters[0].trim().toLowerCase(Locale.ROOT);
+            if (!coding.isEmpty()) {
+                weights.put(X_GZIP.equals(coding) ? GZIP : coding, weight(parameters));
+            }
+        }
+        var gzip = Optional.ofNullable(weights.get(GZIP)).or(() -> Optional.ofNullable(weights.get(ANY_CODING)))
+            .orElse(0.0);
+        var identity = weights.get(IDENTITY);
+        return gzip > 0 && (identity == null || gzip >= identity);
+    }
+
+    // An invalid weight refuses the coding
+    private double weight(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            var parameter = parameters[i].trim();
+            if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                var value = parameter.substring(2).trim();
+                return Q_VALUE.matcher(value).matches() ? Double.parseDouble(value) : 0;
+            }
+        }
+        return 1;
+    }
+
+    private byte[] serialize(Object body) {
+        var startedAt = RequestTimings.start();
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to write the heroes", e);
+        } finally {
+            RequestTimings.stop(Phase.SERIALIZATION, startedAt);
+        }
+    }
+
+    private ResponseEntity<List<HeroDto>> toPageResponse(HeroPageDto page) {
+        var response = ResponseEntity.ok();
+        Optional.ofNullable(page.getNextCursor())
+            .ifPresent(cursor -> response.header(NEXT_CURSOR_HEADER, cursor));
+        return response.body(page.getHeroes());
+    }
+
 }
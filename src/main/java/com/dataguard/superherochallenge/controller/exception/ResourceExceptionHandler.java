@@ -3,6 +3,7 @@ package com.dataguard.superherochallenge.controller.exception;
 import com.dataguard.superherochallenge.service.exception.BadRequestException;
 import com.dataguard.superherochallenge.service.exception.ConflictException;
 import com.dataguard.superherochallenge.service.exception.ObjectNotFoundException;
+import com.dataguard.superherochallenge.service.exception.PreconditionFailedException;
 import java.util.ArrayList;
 import java.util.stream.IntStream;
 import javax.validation.ConstraintViolationException;
@@ -27,6 +28,12 @@ public class ResourceExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(err);
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<StandardError> throwPreconditionFailedException(PreconditionFailedException e) {
+        StandardError err = buildStandardError(HttpStatus.PRECONDITION_FAILED, e);
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(err);
+    }
+
     @ExceptionHandler(BadRequestException.class)
     public ResponseEntity<StandardError> throwBadRequestException(BadRequestException e) {
         StandardError err = buildStandardError(HttpStatus.BAD_REQUEST, e);
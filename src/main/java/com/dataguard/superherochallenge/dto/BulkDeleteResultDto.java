@@ -0,0 +1,14 @@
+package com.dataguard.superherochallenge.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class BulkDeleteResultDto {
+
+    // Distinct ids asked for; the ones that didn't exist aren't deleted
+    private final long requested;
+    private final long deleted;
+
+}
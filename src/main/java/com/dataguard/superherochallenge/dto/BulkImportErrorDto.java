@@ -0,0 +1,17 @@
+package com.dataguard.superherochallenge.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+@JsonInclude(Include.NON_NULL)
+public class BulkImportErrorDto {
+
+    private final long line;
+    private final String name;
+    private final String message;
+
+}
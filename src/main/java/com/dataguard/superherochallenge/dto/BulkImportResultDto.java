@@ -0,0 +1,17 @@
+package com.dataguard.superherochallenge.dto;
+
+import java.util.List;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class BulkImportResultDto {
+
+    private final long imported;
+    private final long failed;
+
+    // Only the first errors are reported, see hero.bulk.max-reported-errors
+    private final List<BulkImportErrorDto> errors;
+
+}
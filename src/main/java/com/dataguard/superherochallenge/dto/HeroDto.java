@@ -1,5 +1,6 @@
 package com.dataguard.superherochallenge.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import javax.validation.constraints.NotBlank;
@@ -11,6 +12,13 @@ import lombok.Getter;
 @JsonInclude(Include.NON_NULL)
 public class HeroDto {
 
+    // Not part of the body: they make the ETag header
+    @JsonIgnore
+    private final Long id;
+
+    @JsonIgnore
+    private final Long version;
+
     @NotBlank(message = "Alias cannot be empty or null")
     private final String alias;
 
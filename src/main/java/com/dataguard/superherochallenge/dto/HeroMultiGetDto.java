@@ -0,0 +1,15 @@
+package com.dataguard.superherochallenge.dto;
+
+import java.util.List;
+import lombok.Builder;
+import lombok.Getter;
+
+// Either names or ids, up to hero.multi-get.max-keys of them
+@Getter
+@Builder
+public class HeroMultiGetDto {
+
+    private final List<String> names;
+    private final List<Long> ids;
+
+}
@@ -0,0 +1,19 @@
+package com.dataguard.superherochallenge.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import lombok.Builder;
+import lombok.Getter;
+
+// One per name or id requested, in the same order: a miss is reported here instead of failing the request
+@Getter
+@Builder
+@JsonInclude(Include.NON_NULL)
+public class HeroMultiGetItemDto {
+
+    private final String name;
+    private final Long id;
+    private final boolean found;
+    private final HeroDto hero;
+
+}
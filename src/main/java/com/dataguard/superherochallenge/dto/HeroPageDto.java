@@ -0,0 +1,16 @@
+package com.dataguard.superherochallenge.dto;
+
+import java.util.List;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class HeroPageDto {
+
+    private final List<HeroDto> heroes;
+
+    // Opaque cursor of the next page, null when this is the last one
+    private final String nextCursor;
+
+}
@@ -0,0 +1,36 @@
+package com.dataguard.superherochallenge.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import javax.validation.Valid;
+import javax.validation.constraints.Pattern;
+import lombok.Builder;
+import lombok.Getter;
+
+// Only what changes: missing fields are kept, and collections are changed value by value
+@Getter
+@Builder
+@JsonInclude(Include.NON_NULL)
+public class HeroPatchDto {
+
+    private static final String NOT_BLANK = "(?s).*\\S.*";
+
+    @Pattern(regexp = NOT_BLANK, message = "Alias cannot be empty")
+    private final String alias;
+
+    @Pattern(regexp = NOT_BLANK, message = "Name cannot be empty")
+    private final String name;
+
+    @Pattern(regexp = NOT_BLANK, message = "Origin cannot be empty")
+    private final String origin;
+
+    @Valid
+    private final HeroValuesPatchDto powers;
+
+    @Valid
+    private final HeroValuesPatchDto weapons;
+
+    @Valid
+    private final HeroValuesPatchDto associations;
+
+}
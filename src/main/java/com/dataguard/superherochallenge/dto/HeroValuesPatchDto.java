@@ -0,0 +1,18 @@
+package com.dataguard.superherochallenge.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+@JsonInclude(Include.NON_NULL)
+public class HeroValuesPatchDto {
+
+    // Values missing from the collection are appended, values already there are kept where they are
+    private final String[] add;
+
+    private final String[] remove;
+
+}
@@ -1,20 +1,38 @@
 package com.dataguard.superherochallenge.entity;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
-import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import javax.persistence.OrderColumn;
 import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 @Entity
+// Cached only when hero.cache.enabled is on, regions are bounded in ehcache.xml
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+// Updates set only the columns that changed
+@DynamicUpdate
+@Table(uniqueConstraints = @UniqueConstraint(name = Hero.NAME_CONSTRAINT, columnNames = "name"))
 @Getter
 @Builder
 @AllArgsConstructor
@@ -23,6 +41,9 @@ public class Hero implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    // The only constraint a hero breaks because of another one
+    public static final String NAME_CONSTRAINT = "uk_hero_name";
+
     @Id
     @SequenceGenerator(
         name = "hero_sequence",
@@ -34,25 +55,90 @@ public class Hero implements Serializable {
     )
     private Long id;
 
+    @Setter
     @Column(nullable = false)
     private String alias;
 
+    @Setter
     @Column(nullable = false)
     private String name;
 
+    @Setter
     @Column(nullable = false)
     private String origin;
 
-    @ElementCollection
-    @OrderColumn(name = "position")
-    private String[] powers;
+    // Bumped on every update: the hero's ETag, and the optimistic lock that keeps concurrent updates
+    // from overwriting each other
+    @Version
+    private long version;
+
+    // Lists instead of arrays: Hibernate always initializes arrays one select per entity,
+    // while lists can be loaded for every hero of a query with one subselect.
+    // Mapped by the storage layout, see hero.storage.layout: element collections whose rows hold the id of the
+    // value in the property's dictionary (orm/collections.xml), or a column of the hero row (orm/compact.xml).
+    // The fetch mode and the cache only apply to the collections.
+    @Fetch(FetchMode.SUBSELECT)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    private List<String> powers;
+
+    @Fetch(FetchMode.SUBSELECT)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    private List<String> weapons;
+
+    @Fetch(FetchMode.SUBSELECT)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    private List<String> associations;
+
+    public String[] getPowers() {
+        return toArray(powers);
+    }
+
+    public String[] getWeapons() {
+        return toArray(weapons);
+    }
+
+    public String[] getAssociations() {
+        return toArray(associations);
+    }
+
+    // The managed collection of the property: changing it writes only the rows that changed, while a list set
+    // through the builder replaces every row
+    public List<String> values(HeroProperty property) {
+        switch (property) {
+            case POWER:
+                return powers = Optional.ofNullable(powers).orElseGet(ArrayList::new);
+            case WEAPON:
+                return weapons = Optional.ofNullable(weapons).orElseGet(ArrayList::new);
+            default:
+                return associations = Optional.ofNullable(associations).orElseGet(ArrayList::new);
+        }
+    }
+
+    private static String[] toArray(List<String> values) {
+        return values == null ? null : values.toArray(new String[0]);
+    }
+
+    private static List<String> toList(String[] values) {
+        return values == null ? null : new ArrayList<>(Arrays.asList(values));
+    }
+
+    public static class HeroBuilder {
+
+        public HeroBuilder powers(String[] powers) {
+            this.powers = toList(powers);
+            return this;
+        }
+
+        public HeroBuilder weapons(String[] weapons) {
+            this.weapons = toList(weapons);
+            return this;
+        }
 
-    @ElementCollection
-    @OrderColumn(name = "position")
-    private String[] weapons;
+        public HeroBuilder associations(String[] associations) {
+            this.associations = toList(associations);
+            return this;
+        }
 
-    @ElementCollection
-    @OrderColumn(name = "position")
-    private String[] associations;
+    }
 
-}
\ No newline at end of file
+}
@@ -14,6 +14,37 @@ public enum HeroProperty {
 
     private final String name;
 
+    // Tables and columns of the property's values. They come from the enum, never from a request, so they're safe
+    // to put in SQL. The dictionary holds each value once, with its id, in a column named after the property
+    public String getDictionaryTable() {
+        return "hero_" + name + "_values";
+    }
+
+    // the entity mapping the dictionary table, see HeroValue
+    public String getDictionaryEntity() {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1) + "Value";
+    }
+
+    // the attribute of Hero holding the values, mapped by the storage layout
+    public String getAttribute() {
+        return name + "s";
+    }
+
+    // the collection table of the collections layout, one row per value of a hero
+    public String getCollectionTable() {
+        return "hero_" + getAttribute();
+    }
+
+    // the column of the collection table holding the dictionary id of the value
+    public String getValueIdColumn() {
+        return name + "_id";
+    }
+
+    // the column of the hero table holding the JSON array of the compact layout
+    public String getArrayColumn() {
+        return getAttribute();
+    }
+
     public static HeroProperty adapterStringToEnum(String property) {
         return Arrays.stream(HeroProperty.values())
             .filter(p -> p.getName().equals(property))
@@ -0,0 +1,67 @@
+package com.dataguard.superherochallenge.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+// The dictionary tables, one per property. They're mapped so Hibernate creates them and their sequences with the
+// rest of the schema; they're read and written by HeroValueDictionary only.
+public final class HeroValue {
+
+    private HeroValue() {
+    }
+
+    @Entity(name = "PowerValue")
+    @Table(name = "hero_power_values",
+        uniqueConstraints = @UniqueConstraint(name = "uk_hero_power_values", columnNames = "power"))
+    public static class Power {
+
+        @Id
+        @SequenceGenerator(name = "hero_power_values_sequence", sequenceName = "hero_power_values_sequence",
+            allocationSize = 1)
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hero_power_values_sequence")
+        private Integer id;
+
+        @Column(nullable = false)
+        private String power;
+
+    }
+
+    @Entity(name = "WeaponValue")
+    @Table(name = "hero_weapon_values",
+        uniqueConstraints = @UniqueConstraint(name = "uk_hero_weapon_values", columnNames = "weapon"))
+    public static class Weapon {
+
+        @Id
+        @SequenceGenerator(name = "hero_weapon_values_sequence", sequenceName = "hero_weapon_values_sequence",
+            allocationSize = 1)
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hero_weapon_values_sequence")
+        private Integer id;
+
+        @Column(nullable = false)
+        private String weapon;
+
+    }
+
+    @Entity(name = "AssociationValue")
+    @Table(name = "hero_association_values",
+        uniqueConstraints = @UniqueConstraint(name = "uk_hero_association_values", columnNames = "association"))
+    public static class Association {
+
+        @Id
+        @SequenceGenerator(name = "hero_association_values_sequence",
+            sequenceName = "hero_association_values_sequence", allocationSize = 1)
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hero_association_values_sequence")
+        private Integer id;
+
+        @Column(nullable = false)
+        private String association;
+
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.dataguard.superherochallenge.entity;
+
+import com.dataguard.superherochallenge.repository.HeroValueDictionary;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import javax.persistence.AttributeConverter;
+import javax.persistence.PersistenceException;
+
+// Stores the whole list of a property on the hero row, as a JSON array of the ids of its values in the property's
+// dictionary: ["flight", null, "healing"] is [3,null,7]. Used by the compact layout, see orm/compact.xml.
+// A hero without values reads an empty list, as it does from the collection tables.
+// An array longer than its column is refused before the statement runs: H2 would reject it as a data error, which
+// reads as a name conflict.
+public abstract class HeroValueArrayConverter implements AttributeConverter<List<String>, String> {
+
+    // the length of the columns in orm/compact.xml
+    public static final int MAXIMUM_LENGTH = 4000;
+
+    private static final String NULL = "null";
+
+    private final HeroProperty property;
+    private final HeroValueDictionary heroValueDictionary;
+
+    protected HeroValueArrayConverter(HeroProperty property, HeroValueDictionary heroValueDictionary) {
+        this.property = property;
+        this.heroValueDictionary = heroValueDictionary;
+    }
+
+    @Override
+    public String convertToDatabaseColumn(List<String> values) {
+        if (values == null) {
+            return null;
+        }
+        var json = new StringJoiner(",", "[", "]");
+        for (String value : values) {
+            json.add(value == null ? NULL : Integer.toString(heroValueDictionary.encode(property, value)));
+        }
+        if (json.length() > MAXIMUM_LENGTH) {
+            throw new ArrayTooLongException("Too many " + property.getAttribute() + ": their ids take "
+                + json.length() + " characters, at most " + MAXIMUM_LENGTH + " fit");
+        }
+        return json.toString();
+    }
+
+    @Override
+    public List<String> convertToEntityAttribute(String json) {
+        var values = new ArrayList<String>();
+        if (json == null) {
+            return values;
+        }
+        var ids = json.substring(1, json.length() - 1);
+        if (!ids.isEmpty()) {
+            for (String id : ids.split(",")) {
+                values.add(NULL.equals(id) ? null : heroValueDictionary.decode(property, Integer.parseInt(id)));
+            }
+        }
+        return values;
+    }
+
+    // A PersistenceException, so Hibernate rethrows it as is rather than wrapping it
+    public static class ArrayTooLongException extends PersistenceException {
+
+        public ArrayTooLongException(String message) {
+            super(message);
+        }
+
+    }
+
+    public static class Power extends HeroValueArrayConverter {
+
+        public Power(HeroValueDictionary heroValueDictionary) {
+            super(HeroProperty.POWER, heroValueDictionary);
+        }
+
+    }
+
+    public static class Weapon extends HeroValueArrayConverter {
+
+        public Weapon(HeroValueDictionary heroValueDictionary) {
+            super(HeroProperty.WEAPON, heroValueDictionary);
+        }
+
+    }
+
+    public static class Association extends HeroValueArrayConverter {
+
+        public Association(HeroValueDictionary heroValueDictionary) {
+            super(HeroProperty.ASSOCIATION, heroValueDictionary);
+        }
+
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.dataguard.superherochallenge.entity;
+
+import com.dataguard.superherochallenge.repository.HeroValueDictionary;
+import javax.persistence.AttributeConverter;
+
+// Stores every power, weapon or association as the id of its value in the property's dictionary.
+// Hibernate asks Spring for the converters, which is how they get the dictionary.
+public abstract class HeroValueConverter implements AttributeConverter<String, Integer> {
+
+    private final HeroProperty property;
+    private final HeroValueDictionary heroValueDictionary;
+
+    protected HeroValueConverter(HeroProperty property, HeroValueDictionary heroValueDictionary) {
+        this.property = property;
+        this.heroValueDictionary = heroValueDictionary;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String value) {
+        return value == null ? null : heroValueDictionary.encode(property, value);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer id) {
+        return id == null ? null : heroValueDictionary.decode(property, id);
+    }
+
+    public static class Power extends HeroValueConverter {
+
+        public Power(HeroValueDictionary heroValueDictionary) {
+            super(HeroProperty.POWER, heroValueDictionary);
+        }
+
+    }
+
+    public static class Weapon extends HeroValueConverter {
+
+        public Weapon(HeroValueDictionary heroValueDictionary) {
+            super(HeroProperty.WEAPON, heroValueDictionary);
+        }
+
+    }
+
+    public static class Association extends HeroValueConverter {
+
+        public Association(HeroValueDictionary heroValueDictionary) {
+            super(HeroProperty.ASSOCIATION, heroValueDictionary);
+        }
+
+    }
+
+}
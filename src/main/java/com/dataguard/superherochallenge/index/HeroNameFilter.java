@@ -0,0 +1,94 @@
+package com.dataguard.superherochallenge.index;
+
+import com.dataguard.superherochallenge.repository.HeroRepository;
+import com.google.common.base.Charsets;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+// Bloom filter of the existing hero names: when it says a name was never seen, the duplicate check
+// before an insert can be skipped and the unique index on the name is the only guard left.
+// Until it's built every name is reported as possibly existing. The names are read without holding the lock,
+// so the names added meanwhile are kept aside and put in the new filter when it replaces the old one.
+@Slf4j
+@Component
+public class HeroNameFilter {
+
+    private final HeroRepository heroRepository;
+    private final int expectedInsertions;
+    private final double falsePositiveProbability;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private BloomFilter<CharSequence> filter;
+    private List<String> addedDuringBuild;
+
+    public HeroNameFilter(HeroRepository heroRepository,
+                          @Value("${hero.name-filter.expected-insertions:1000000}") int expectedInsertions,
+                          @Value("${hero.name-filter.false-positive-probability:0.01}") double falsePositiveProbability) {
+        this.heroRepository = heroRepository;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+    }
+
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        log.info("[build] start building hero name filter");
+        var newFilter = BloomFilter.create(Funnels.stringFunnel(Charsets.UTF_8), expectedInsertions,
+            falsePositiveProbability);
+
+        lock.writeLock().lock();
+        try {
+            addedDuringBuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try (var names = heroRepository.streamAllNames()) {
+            names.forEach(newFilter::put);
+        }
+
+        lock.writeLock().lock();
+        try {
+            addedDuringBuild.forEach(newFilter::put);
+            addedDuringBuild = null;
+            filter = newFilter;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("[build] hero name filter built");
+    }
+
+    public boolean mightContain(String name) {
+        lock.readLock().lock();
+        try {
+            return filter == null || filter.mightContain(name);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(String name) {
+        lock.writeLock().lock();
+        try {
+            if (filter != null) {
+                filter.put(name);
+            }
+            if (addedDuringBuild != null) {
+                addedDuringBuild.add(name);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+}
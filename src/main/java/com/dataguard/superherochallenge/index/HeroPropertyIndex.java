@@ -0,0 +1,285 @@
+package com.dataguard.superherochallenge.index;
+
+import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.entity.HeroProperty;
+import com.dataguard.superherochallenge.repository.HeroRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+// Inverted index from each power, weapon and association value to the heroes having it.
+// Heroes get dense ordinals and every value keeps a compressed bitmap of ordinals, so lookups and
+// compound queries cost in proportion to the bitmaps touched instead of the number of heroes.
+// It's built when the application is ready and kept up to date by the hero services; until then they query the
+// database. The build reads the heroes into a new index without holding the lock, and the writes made meanwhile
+// are replayed onto it before it replaces the current one.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HeroPropertyIndex {
+
+    private static final int BUILD_CHUNK_SIZE = 1000;
+
+    private final HeroRepository heroRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Snapshot snapshot = new Snapshot();
+    // the writes made while a build reads the heroes, null when none is running
+    private List<Consumer<Snapshot>> journal;
+
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        var building = new AtomicBoolean();
+        write(() -> {
+            if (journal == null) {
+                journal = new ArrayList<>();
+                building.set(true);
+            }
+        });
+        if (!building.get()) {
+            log.info("[build] hero property index already being built");
+            return;
+        }
+
+        log.info("[build] start building hero property index");
+        var built = new Snapshot();
+        try {
+            var after = 0L;
+            List<Long> chunk;
+            do {
+                chunk = heroRepository.findIdsAfter(after, PageRequest.of(0, BUILD_CHUNK_SIZE));
+                if (!chunk.isEmpty()) {
+                    heroRepository.findByIdInOrderById(chunk).forEach(built::put);
+                    after = chunk.get(chunk.size() - 1);
+                }
+            } while (chunk.size() == BUILD_CHUNK_SIZE);
+        } catch (RuntimeException e) {
+            write(() -> journal = null);
+            throw e;
+        }
+
+        write(() -> {
+            journal.forEach(replay -> replay.accept(built));
+            built.optimize();
+            snapshot = built;
+            journal = null;
+            ready = true;
+        });
+        log.info("[build] hero property index built with {} heroes", built.heroes.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void add(Hero hero) {
+        write(current -> current.put(hero));
+    }
+
+    // Replaces the values indexed for the hero in one step, so readers never miss it. Whatever values were indexed
+    // are the ones removed, and a write of an older version than the indexed one is ignored.
+    public void update(Hero hero) {
+        write(current -> current.put(hero));
+    }
+
+    // Removes heroes known only by id, from the bitmaps of the values indexed for them
+    public void removeAll(Collection<Long> heroIds) {
+        var ids = List.copyOf(heroIds);
+        write(current -> ids.forEach(current::remove));
+    }
+
+    // Ids of the heroes having the value for the property, in ascending order
+    public List<Long> find(HeroProperty property, String value) {
+        return read(() -> snapshot.toIds(snapshot.bitmap(property, value)));
+    }
+
+    // Ids of the heroes matching the query, in ascending order. Inside every AND group the most selective
+    // term is evaluated first and the group stops as soon as its intersection is empty.
+    public List<Long> find(HeroQuery query) {
+        return read(() -> {
+            var result = new RoaringBitmap();
+            for (List<HeroQuery.Term> group : query.getGroups()) {
+                result.or(intersect(group));
+            }
+            return snapshot.toIds(result);
+        });
+    }
+
+    private RoaringBitmap intersect(List<HeroQuery.Term> terms) {
+        var bitmaps = terms.stream()
+            .map(term -> snapshot.bitmap(term.getProperty(), term.getValue()))
+            .sorted(Comparator.comparingLong(RoaringBitmap::getLongCardinality))
+            .iterator();
+
+        var result = bitmaps.next().clone();
+        while (bitmaps.hasNext() && !result.isEmpty()) {
+            result.and(bitmaps.next());
+        }
+        return result;
+    }
+
+    private <T> T read(Supplier<T> supplier) {
+        lock.readLock().lock();
+        try {
+            return supplier.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Applies the write to the current index, and to the one being built if any
+    private void write(Consumer<Snapshot> write) {
+        write(() -> {
+            write.accept(snapshot);
+            if (journal != null) {
+                journal.add(write);
+            }
+        });
+    }
+
+    private void write(Runnable runnable) {
+        lock.writeLock().lock();
+        try {
+            runnable.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static class Snapshot {
+
+        private final Map<HeroProperty, Map<String, RoaringBitmap>> index = buildEmptyIndex();
+        // the ordinal, version and values indexed for each hero, so a write never depends on the caller's copy
+        private final Map<Long, IndexedHero> heroes = new HashMap<>();
+        private long[] ids = new long[BUILD_CHUNK_SIZE];
+        private int nextOrdinal;
+
+        private void put(Hero hero) {
+            var indexed = heroes.get(hero.getId());
+            if (indexed != null && indexed.getVersion() > hero.getVersion()) {
+                return;
+            }
+            var ordinal = indexed == null ? nextOrdinal(hero.getId()) : indexed.getOrdinal();
+            if (indexed != null) {
+                clear(indexed);
+            }
+
+            var values = new EnumMap<HeroProperty, String[]>(HeroProperty.class);
+            for (HeroProperty property : HeroProperty.values()) {
+                var propertyValues = valuesOf(hero, property);
+                var bitmaps = index.get(property);
+                for (String value : propertyValues) {
+                    bitmaps.computeIfAbsent(value, v -> new RoaringBitmap()).add(ordinal);
+                }
+                values.put(property, propertyValues);
+            }
+            heroes.put(hero.getId(), new IndexedHero(ordinal, hero.getVersion(), values));
+        }
+
+        private void remove(Long heroId) {
+            Optional.ofNullable(heroes.remove(heroId)).ifPresent(this::clear);
+        }
+
+        private void clear(IndexedHero indexed) {
+            indexed.getValues().forEach((property, values) -> {
+                var bitmaps = index.get(property);
+                for (String value : values) {
+                    bitmaps.computeIfPresent(value, (v, bitmap) -> {
+                        bitmap.remove(indexed.getOrdinal());
+                        return bitmap.isEmpty() ? null : bitmap;
+                    });
+                }
+            });
+        }
+
+        private RoaringBitmap bitmap(HeroProperty property, String value) {
+            return Optional.ofNullable(index.get(property).get(value)).orElseGet(RoaringBitmap::new);
+        }
+
+        private void optimize() {
+            index.values().forEach(values -> values.values().forEach(RoaringBitmap::runOptimize));
+        }
+
+        // Ordinals are not reused after a removal: the next build compacts them again
+        private int nextOrdinal(Long id) {
+            if (nextOrdinal == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            ids[nextOrdinal] = id;
+            return nextOrdinal++;
+        }
+
+        private List<Long> toIds(RoaringBitmap bitmap) {
+            var heroIds = new Long[bitmap.getCardinality()];
+            var iterator = bitmap.getIntIterator();
+            var i = 0;
+            while (iterator.hasNext()) {
+                heroIds[i++] = ids[iterator.next()];
+            }
+            Arrays.sort(heroIds);
+            return Arrays.asList(heroIds);
+        }
+
+        private static String[] valuesOf(Hero hero, HeroProperty property) {
+            String[] values;
+            switch (property) {
+                case POWER:
+                    values = hero.getPowers();
+                    break;
+                case WEAPON:
+                    values = hero.getWeapons();
+                    break;
+                default:
+                    values = hero.getAssociations();
+            }
+            return Optional.ofNullable(values).stream()
+                .flatMap(Arrays::stream)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toArray(String[]::new);
+        }
+
+        private static Map<HeroProperty, Map<String, RoaringBitmap>> buildEmptyIndex() {
+            var emptyIndex = new EnumMap<HeroProperty, Map<String, RoaringBitmap>>(HeroProperty.class);
+            for (HeroProperty property : HeroProperty.values()) {
+                emptyIndex.put(property, new HashMap<>());
+            }
+            return emptyIndex;
+        }
+
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class IndexedHero {
+
+        private final int ordinal;
+        private final long version;
+        private final Map<HeroProperty, String[]> values;
+
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.dataguard.superherochallenge.index;
+
+import com.dataguard.superherochallenge.entity.HeroProperty;
+import com.dataguard.superherochallenge.service.exception.BadRequestException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Compound property query like "power=flight AND weapon=arc-reactor OR association=avengers",
+// where AND binds tighter than OR. It's kept as a disjunction of conjunctions of terms.
+@Getter
+@AllArgsConstructor
+public class HeroQuery {
+
+    private static final Pattern OR = Pattern.compile("\\s+OR\\s+", Pattern.CASE_INSENSITIVE);
+    private static final Pattern AND = Pattern.compile("\\s+AND\\s+", Pattern.CASE_INSENSITIVE);
+
+    private final List<List<Term>> groups;
+
+    public static HeroQuery parse(String query) {
+        if (Optional.ofNullable(query).isEmpty() || query.isBlank()) {
+            throw new BadRequestException("Missing the query");
+        }
+        var groups = Arrays.stream(OR.split(query.trim()))
+            .map(group -> Arrays.stream(AND.split(group))
+                .map(Term::parse)
+                .collect(Collectors.toList()))
+            .collect(Collectors.toList());
+        return new HeroQuery(groups);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Term {
+
+        private final HeroProperty property;
+        private final String value;
+
+        static Term parse(String term) {
+            var separator = term.indexOf('=');
+            if (separator < 0) {
+                throw new BadRequestException("Invalid query term '" + term + "': use property=value");
+            }
+            var property = HeroProperty.adapterStringToEnum(term.substring(0, separator).trim());
+            var value = term.substring(separator + 1).trim();
+
+            if (Optional.ofNullable(property).isEmpty()) {
+                throw new BadRequestException("The property informed doesn't exist: try power, weapon or association");
+            }
+            if (value.isEmpty()) {
+                throw new BadRequestException("Invalid query term '" + term + "': value is missing");
+            }
+            return new Term(property, value);
+        }
+
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.dataguard.superherochallenge.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+// One timer per layer and method, tagged by outcome: its count is the number of calls with that outcome
+@Aspect
+@Component
+@AllArgsConstructor
+public class HeroMetricsAspect {
+
+    static final String CONTROLLER_METRIC = "hero.controller.requests";
+    static final String SERVICE_METRIC = "hero.service.operations";
+    static final String REPOSITORY_METRIC = "hero.repository.queries";
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("within(com.dataguard.superherochallenge.controller.*) "
+        + "&& @within(org.springframework.web.bind.annotation.RestController)")
+    public Object timeController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(CONTROLLER_METRIC, joinPoint);
+    }
+
+    @Around("within(com.dataguard.superherochallenge.service.impl.*)")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_METRIC, joinPoint);
+    }
+
+    // Also recorded for Flight Recorder, with the hero the operation is about and its outcome
+    @Around("@annotation(com.dataguard.superherochallenge.metrics.HeroOperation)")
+    public Object recordOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+        var event = HeroOperationEvent.begin(joinPoint.getSignature().getName(), joinPoint.getArgs());
+        try {
+            var result = joinPoint.proceed();
+            event.succeeded(result);
+            return result;
+        } catch (Throwable e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Around("this(com.dataguard.superherochallenge.repository.HeroRepository)")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(REPOSITORY_METRIC, joinPoint);
+    }
+
+    private Object time(String metric, ProceedingJoinPoint joinPoint) throws Throwable {
+        var sample = Timer.start(meterRegistry);
+        Throwable failure = null;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(metric)
+                .tag("method", joinPoint.getSignature().getName())
+                .tag("outcome", Outcome.of(failure).getTag())
+                .register(meterRegistry));
+        }
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.dataguard.superherochallenge.metrics;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// A service operation recorded as a HeroOperationEvent by HeroMetricsAspect
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface HeroOperation {
+}
@@ -0,0 +1,110 @@
+package com.dataguard.superherochallenge.metrics;
+
+import com.dataguard.superherochallenge.dto.BulkDeleteResultDto;
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.dto.HeroMultiGetDto;
+import com.dataguard.superherochallenge.dto.HeroMultiGetItemDto;
+import java.util.Collection;
+import java.util.Optional;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Flight Recorder event for one hero operation, emitted by HeroMetricsAspect around the @HeroOperation methods.
+// While no recording has it enabled, begin() and commit() do nothing and the event object doesn't escape,
+// so the JIT removes it.
+@Name("com.dataguard.superherochallenge.HeroOperation")
+@Label("Hero Operation")
+@Category("Super Hero")
+@Description("A hero created, updated, deleted or looked up by name or property")
+@StackTrace(false)
+public class HeroOperationEvent extends Event {
+
+    private static final String NAME = "name";
+    private static final String NAMES = "names";
+    private static final String ID = "id";
+    private static final String IDS = "ids";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Property")
+    String property;
+
+    @Label("Value")
+    String value;
+
+    @Label("Result Count")
+    @Description("Heroes returned or changed by the operation")
+    int resultCount;
+
+    @Label("Outcome")
+    String outcome;
+
+    public static HeroOperationEvent begin(String operation, Object[] args) {
+        var event = new HeroOperationEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            event.operation = operation;
+            event.describe(args);
+            event.outcome = Outcome.OK.getTag();
+        }
+        return event;
+    }
+
+    public void succeeded(Object result) {
+        if (isEnabled()) {
+            this.resultCount = count(result);
+        }
+    }
+
+    public void failed(Throwable throwable) {
+        this.outcome = Outcome.of(throwable).getTag();
+    }
+
+    // What the operation is about: a property and its value, a hero's name or id, or how many were asked for
+    private void describe(Object[] args) {
+        var first = args.length > 0 ? args[0] : null;
+        if (args.length > 1 && first instanceof String && args[1] instanceof String) {
+            property = (String) first;
+            value = (String) args[1];
+        } else if (first instanceof String) {
+            property = NAME;
+            value = (String) first;
+        } else if (first instanceof HeroDto) {
+            property = NAME;
+            value = ((HeroDto) first).getName();
+        } else if (first instanceof Long) {
+            property = ID;
+            value = String.valueOf(first);
+        } else if (first instanceof Collection) {
+            property = IDS;
+            value = String.valueOf(((Collection<?>) first).size());
+        } else if (first instanceof HeroMultiGetDto) {
+            var names = ((HeroMultiGetDto) first).getNames();
+            var ids = ((HeroMultiGetDto) first).getIds();
+            property = names != null ? NAMES : IDS;
+            value = String.valueOf(names != null ? names.size() : ids == null ? 0 : ids.size());
+        }
+    }
+
+    // Heroes returned or changed: one for a single hero, the heroes found or deleted for the others
+    private static int count(Object result) {
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result instanceof BulkDeleteResultDto) {
+            return (int) ((BulkDeleteResultDto) result).getDeleted();
+        }
+        if (result instanceof Collection) {
+            return (int) ((Collection<?>) result).stream()
+                .filter(item -> !(item instanceof HeroMultiGetItemDto) || ((HeroMultiGetItemDto) item).isFound())
+                .count();
+        }
+        return 1;
+    }
+
+}
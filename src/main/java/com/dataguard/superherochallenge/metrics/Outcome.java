@@ -0,0 +1,44 @@
+package com.dataguard.superherochallenge.metrics;
+
+import com.dataguard.superherochallenge.service.exception.BadRequestException;
+import com.dataguard.superherochallenge.service.exception.ConflictException;
+import com.dataguard.superherochallenge.service.exception.ObjectNotFoundException;
+import com.dataguard.superherochallenge.service.exception.PreconditionFailedException;
+import javax.validation.ConstraintViolationException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Same mapping ResourceExceptionHandler uses to pick the response status
+@Getter
+@AllArgsConstructor
+public enum Outcome {
+
+    OK("ok"),
+    NOT_FOUND("not-found"),
+    CONFLICT("conflict"),
+    PRECONDITION_FAILED("precondition-failed"),
+    BAD_REQUEST("bad-request"),
+    ERROR("error");
+
+    private final String tag;
+
+    public static Outcome of(Throwable throwable) {
+        if (throwable == null) {
+            return OK;
+        }
+        if (throwable instanceof ObjectNotFoundException) {
+            return NOT_FOUND;
+        }
+        if (throwable instanceof ConflictException) {
+            return CONFLICT;
+        }
+        if (throwable instanceof PreconditionFailedException) {
+            return PRECONDITION_FAILED;
+        }
+        if (throwable instanceof BadRequestException || throwable instanceof ConstraintViolationException) {
+            return BAD_REQUEST;
+        }
+        return ERROR;
+    }
+
+}
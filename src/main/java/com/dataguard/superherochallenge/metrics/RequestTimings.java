@@ -0,0 +1,96 @@
+package com.dataguard.superherochallenge.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Time spent by one request in each phase, bound to the threads working on it.
+// When no request timings are bound, start() and stop() only read the thread local.
+public final class RequestTimings {
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+    private static final long OFF = Long.MIN_VALUE;
+
+    private final long startedAt = System.nanoTime();
+    private final LongAdder[] nanos = newAdders();
+    private final LongAdder[] calls = newAdders();
+
+    @Getter
+    @AllArgsConstructor
+    public enum Phase {
+
+        DB("db"),
+        MAPPING("map"),
+        SERIALIZATION("json");
+
+        private final String metric;
+
+    }
+
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+
+    }
+
+    public static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    // Binds the timings to the current thread until the scope is closed, also for work handed to other threads
+    public static Scope bind(RequestTimings timings) {
+        var previous = CURRENT.get();
+        CURRENT.set(timings);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public static long start() {
+        return CURRENT.get() == null ? OFF : System.nanoTime();
+    }
+
+    public static void stop(Phase phase, long startedAt) {
+        if (startedAt != OFF) {
+            var timings = CURRENT.get();
+            if (timings != null) {
+                timings.add(phase, System.nanoTime() - startedAt);
+            }
+        }
+    }
+
+    public void add(Phase phase, long elapsedNanos) {
+        nanos[phase.ordinal()].add(elapsedNanos);
+        calls[phase.ordinal()].increment();
+    }
+
+    public long getNanos(Phase phase) {
+        return nanos[phase.ordinal()].sum();
+    }
+
+    public long getCalls(Phase phase) {
+        return calls[phase.ordinal()].sum();
+    }
+
+    // Server-Timing header value, durations in milliseconds
+    public String toHeader() {
+        var phases = Stream.of(Phase.values())
+            .map(phase -> String.format(Locale.ROOT, "%s;dur=%.3f;desc=\"%d calls\"", phase.getMetric(),
+                getNanos(phase) / 1e6, getCalls(phase)));
+        var total = Stream.of(String.format(Locale.ROOT, "total;dur=%.3f", (System.nanoTime() - startedAt) / 1e6));
+        return Stream.concat(phases, total).collect(Collectors.joining(", "));
+    }
+
+    private static LongAdder[] newAdders() {
+        return Stream.of(Phase.values()).map(phase -> new LongAdder()).toArray(LongAdder[]::new);
+    }
+
+}
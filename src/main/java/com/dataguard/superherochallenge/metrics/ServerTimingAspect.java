@@ -0,0 +1,35 @@
+package com.dataguard.superherochallenge.metrics;
+
+import com.dataguard.superherochallenge.metrics.RequestTimings.Phase;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Left out entirely with hero.server-timing.enabled=false, so the adapter isn't proxied at all
+@Aspect
+@Component
+@ConditionalOnProperty(value = "hero.server-timing.enabled", havingValue = "true", matchIfMissing = true)
+public class ServerTimingAspect {
+
+    @Around("this(com.dataguard.superherochallenge.repository.HeroRepository)")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(Phase.DB, joinPoint);
+    }
+
+    @Around("within(com.dataguard.superherochallenge.adapter.HeroAdapter)")
+    public Object timeAdapter(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(Phase.MAPPING, joinPoint);
+    }
+
+    private Object time(Phase phase, ProceedingJoinPoint joinPoint) throws Throwable {
+        var startedAt = RequestTimings.start();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            RequestTimings.stop(phase, startedAt);
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.dataguard.superherochallenge.metrics;
+
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+// Requests sent with "X-Server-Timing: true" get a Server-Timing header with the time spent in the database,
+// in the adapter and writing JSON. Their body is buffered until it's complete, so the header can still be
+// added; every other request goes straight through.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_HEADER = "X-Server-Timing";
+    public static final String RESPONSE_HEADER = "Server-Timing";
+    private static final String TIMINGS_ATTRIBUTE = ServerTimingFilter.class.getName() + ".timings";
+
+    private final boolean enabled;
+
+    public ServerTimingFilter(@Value("${hero.server-timing.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // streamed responses are finished in the async dispatch
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        var timings = (RequestTimings) request.getAttribute(TIMINGS_ATTRIBUTE);
+        var responseToUse = response;
+
+        if (timings == null) {
+            if (!enabled || !Boolean.parseBoolean(request.getHeader(REQUEST_HEADER))) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            timings = new RequestTimings();
+            request.setAttribute(TIMINGS_ATTRIBUTE, timings);
+            responseToUse = new ContentCachingResponseWrapper(response);
+        }
+
+        try (var scope = RequestTimings.bind(timings)) {
+            filterChain.doFilter(request, responseToUse);
+        }
+
+        if (!isAsyncStarted(request)) {
+            var wrapper = WebUtils.getNativeResponse(responseToUse, ContentCachingResponseWrapper.class);
+            if (wrapper != null) {
+                wrapper.setHeader(RESPONSE_HEADER, timings.toHeader());
+                wrapper.copyBodyToResponse();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.dataguard.superherochallenge.metrics;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+// Warns about requests that run more SQL statements than the budget, which usually means an N+1 somewhere.
+// The statements of a streamed response, run by another thread, are added to its request's count, and the
+// budget is checked once the async dispatch finishes the response.
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "hero.statement-budget.enabled", havingValue = "true")
+public class StatementBudgetFilter extends OncePerRequestFilter {
+
+    private static final String COUNT_ATTRIBUTE = StatementBudgetFilter.class.getName() + ".count";
+
+    private final long maxStatements;
+
+    public StatementBudgetFilter(@Value("${hero.statement-budget.max-statements:20}") long maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        var count = (StatementCounter.Count) request.getAttribute(COUNT_ATTRIBUTE);
+
+        if (count == null) {
+            try (var started = StatementCounter.start()) {
+                request.setAttribute(COUNT_ATTRIBUTE, started);
+                WebAsyncUtils.getAsyncManager(request)
+                    .registerCallableInterceptor(COUNT_ATTRIBUTE, new AsyncCountInterceptor(started));
+                filterChain.doFilter(request, response);
+            }
+        } else {
+            try (var scope = StatementCounter.bind(count)) {
+                filterChain.doFilter(request, response);
+            }
+        }
+
+        if (!isAsyncStarted(request)) {
+            count = (StatementCounter.Count) request.getAttribute(COUNT_ATTRIBUTE);
+            if (count.getStatements() > maxStatements) {
+                log.warn("[statementBudget] {} {} ran {} SQL statements, over the budget of {}",
+                    request.getMethod(), request.getRequestURI(), count.getStatements(), maxStatements);
+            }
+        }
+    }
+
+    // Binds the request's count to the thread running its Callable or StreamingResponseBody
+    @RequiredArgsConstructor
+    private static class AsyncCountInterceptor implements CallableProcessingInterceptor {
+
+        private final StatementCounter.Count count;
+        private StatementCounter.Scope scope;
+
+        @Override
+        public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+            scope = StatementCounter.bind(count);
+        }
+
+        @Override
+        public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+            scope.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.dataguard.superherochallenge.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Counts the SQL statements Hibernate prepares on the current thread while a count is open.
+// Registered as the session factory's statement inspector; with no open count it only reads the thread local.
+// A count can be bound to other threads working on the same request, like the one writing a streamed body.
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<Count> CURRENT = new ThreadLocal<>();
+
+    public static final class Count implements AutoCloseable {
+
+        private final LongAdder statements = new LongAdder();
+        private final Scope scope = bind(this);
+
+        private Count() {
+        }
+
+        public long getStatements() {
+            return statements.sum();
+        }
+
+        @Override
+        public void close() {
+            scope.close();
+        }
+
+    }
+
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+
+    }
+
+    @Override
+    public String inspect(String sql) {
+        var count = CURRENT.get();
+        if (count != null) {
+            count.statements.increment();
+        }
+        return sql;
+    }
+
+    // Starts counting on this thread until the count is closed
+    public static Count start() {
+        return new Count();
+    }
+
+    // Adds the statements of this thread to a count started on another one, until the scope is closed
+    public static Scope bind(Count count) {
+        var previous = CURRENT.get();
+        CURRENT.set(count);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public static long count(Runnable action) {
+        try (var count = start()) {
+            action.run();
+            return count.getStatements();
+        }
+    }
+
+    public static <T> long count(Supplier<T> action) {
+        return count((Runnable) action::get);
+    }
+
+}
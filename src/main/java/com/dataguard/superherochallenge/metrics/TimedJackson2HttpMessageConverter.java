@@ -0,0 +1,29 @@
+package com.dataguard.superherochallenge.metrics;
+
+import com.dataguard.superherochallenge.metrics.RequestTimings.Phase;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+// Replaces Boot's JSON converter to add the time spent writing response bodies to the request timings
+@Component
+public class TimedJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    public TimedJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        var startedAt = RequestTimings.start();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            RequestTimings.stop(Phase.SERIALIZATION, startedAt);
+        }
+    }
+
+}
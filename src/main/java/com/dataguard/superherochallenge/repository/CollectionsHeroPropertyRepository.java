@@ -0,0 +1,65 @@
+package com.dataguard.superherochallenge.repository;
+
+import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.entity.HeroProperty;
+import com.dataguard.superherochallenge.repository.HeroRepository.HeroesVersion;
+import java.util.Collection;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+
+// hero.storage.layout=collections: a row per value in the property's collection table, indexed by the id of the
+// value and then the hero, see orm/collections.xml. The value parameters are converted to their dictionary ids by
+// HeroValueConverter.
+class CollectionsHeroPropertyRepository implements HeroPropertyRepository {
+
+    private final EntityManager entityManager;
+
+    CollectionsHeroPropertyRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Hero> findByProperty(HeroProperty property, String value) {
+        return entityManager.createQuery("select h from Hero h WHERE " + withValue(property), Hero.class)
+            .setParameter("value", value)
+            .getResultList();
+    }
+
+    @Override
+    public HeroesVersion findHeroesVersionByProperty(HeroProperty property, String value) {
+        var version = entityManager.createQuery(HeroPropertyRepositoryImpl.HEROES_VERSION + " WHERE "
+                + withValue(property), Tuple.class)
+            .setParameter("value", value)
+            .getSingleResult();
+        return HeroPropertyRepositoryImpl.toHeroesVersion(version);
+    }
+
+    @Override
+    public List<Long> findIdsByPropertyAfter(HeroProperty property, String value, Long after, int limit) {
+        return entityManager.createQuery("select distinct h.id from Hero h join h." + property.getAttribute()
+                + " p WHERE p = :value and h.id > :after order by h.id", Long.class)
+            .setParameter("value", value)
+            .setParameter("after", after)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
+    // The collection tables aren't reachable from JPQL. Hibernate then drops the cached collections.
+    @Override
+    public int deleteValuesByHeroIdIn(Collection<Long> ids) {
+        var deleted = 0;
+        for (HeroProperty property : HeroProperty.values()) {
+            deleted += entityManager.createNativeQuery("delete from " + property.getCollectionTable()
+                    + " where hero_id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        }
+        return deleted;
+    }
+
+    private static String withValue(HeroProperty property) {
+        return "h.id in (select v.id from Hero v join v." + property.getAttribute() + " p WHERE p = :value)";
+    }
+
+}
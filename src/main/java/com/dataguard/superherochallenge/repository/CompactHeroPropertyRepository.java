@@ -0,0 +1,62 @@
+package com.dataguard.superherochallenge.repository;
+
+import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.entity.HeroProperty;
+import com.dataguard.superherochallenge.repository.HeroRepository.HeroesVersion;
+import java.util.Collection;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+
+// hero.storage.layout=compact: the values are a JSON array of dictionary ids on the hero row, see
+// orm/compact.xml. H2 can't index the elements of an array: searches by property are served by HeroPropertyIndex,
+// and these queries, used until it's built, scan the hero table for the id of the value.
+class CompactHeroPropertyRepository implements HeroPropertyRepository {
+
+    private final EntityManager entityManager;
+
+    CompactHeroPropertyRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Hero> findByProperty(HeroProperty property, String value) {
+        return entityManager.createQuery("select h from Hero h WHERE " + withValue(property), Hero.class)
+            .setParameter("value", value)
+            .getResultList();
+    }
+
+    @Override
+    public HeroesVersion findHeroesVersionByProperty(HeroProperty property, String value) {
+        var version = entityManager.createQuery(HeroPropertyRepositoryImpl.HEROES_VERSION + " WHERE "
+                + withValue(property), Tuple.class)
+            .setParameter("value", value)
+            .getSingleResult();
+        return HeroPropertyRepositoryImpl.toHeroesVersion(version);
+    }
+
+    @Override
+    public List<Long> findIdsByPropertyAfter(HeroProperty property, String value, Long after, int limit) {
+        return entityManager.createQuery("select h.id from Hero h WHERE h.id > :after and " + withValue(property)
+                + " order by h.id", Long.class)
+            .setParameter("value", value)
+            .setParameter("after", after)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
+    // The values go with the hero row
+    @Override
+    public int deleteValuesByHeroIdIn(Collection<Long> ids) {
+        return 0;
+    }
+
+    // The id of the value, between commas, in the array without its brackets
+    private static String withValue(HeroProperty property) {
+        var array = "h." + property.getAttribute();
+        return "exists (select v.id from " + property.getDictionaryEntity() + " v WHERE v." + property.getName()
+            + " = :value and locate(concat(',', str(v.id), ','), concat(',', substring(" + array + ", 2, length("
+            + array + ") - 2), ','), 1) > 0)";
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.dataguard.superherochallenge.repository;
+
+import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.entity.HeroProperty;
+import com.dataguard.superherochallenge.repository.HeroRepository.HeroesVersion;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.transaction.annotation.Transactional;
+
+// The queries of HeroRepository that depend on the storage layout, implemented once per layout:
+// CollectionsHeroPropertyRepository and CompactHeroPropertyRepository, see hero.storage.layout
+public interface HeroPropertyRepository {
+
+    List<Hero> findByProperty(final HeroProperty property, final String value);
+
+    HeroesVersion findHeroesVersionByProperty(final HeroProperty property, final String value);
+
+    // Keyset pages of the heroes having the value, in id order
+    List<Long> findIdsByPropertyAfter(final HeroProperty property, final String value, final Long after,
+                                      final int limit);
+
+    // Run before deleteHeroesByIdIn, so the values never outlive their heroes
+    @Transactional
+    int deleteValuesByHeroIdIn(final Collection<Long> ids);
+
+}
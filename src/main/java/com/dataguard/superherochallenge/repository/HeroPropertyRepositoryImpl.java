@@ -0,0 +1,77 @@
+package com.dataguard.superherochallenge.repository;
+
+import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.entity.HeroProperty;
+import com.dataguard.superherochallenge.repository.HeroRepository.HeroesVersion;
+import java.util.Collection;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import org.springframework.beans.factory.annotation.Value;
+
+// The implementation Spring Data finds for HeroPropertyRepository: it hands every call to the one of the layout
+// the entities are mapped with
+public class HeroPropertyRepositoryImpl implements HeroPropertyRepository {
+
+    private static final String COMPACT = "compact";
+
+    // The aggregate of HeroRepository.findHeroesVersion, over the heroes a layout's condition selects
+    static final String HEROES_VERSION = "select count(h.id) as heroes, coalesce(sum(h.version), 0) as versions,"
+        + " coalesce(sum(h.id), 0) as ids, coalesce(max(h.id), 0) as lastId from Hero h";
+
+    private final HeroPropertyRepository layout;
+
+    public HeroPropertyRepositoryImpl(EntityManager entityManager,
+                                      @Value("${hero.storage.layout:collections}") String layout) {
+        this.layout = COMPACT.equals(layout)
+            ? new CompactHeroPropertyRepository(entityManager)
+            : new CollectionsHeroPropertyRepository(entityManager);
+    }
+
+    @Override
+    public List<Hero> findByProperty(HeroProperty property, String value) {
+        return layout.findByProperty(property, value);
+    }
+
+    @Override
+    public HeroesVersion findHeroesVersionByProperty(HeroProperty property, String value) {
+        return layout.findHeroesVersionByProperty(property, value);
+    }
+
+    @Override
+    public List<Long> findIdsByPropertyAfter(HeroProperty property, String value, Long after, int limit) {
+        return layout.findIdsByPropertyAfter(property, value, after, limit);
+    }
+
+    @Override
+    public int deleteValuesByHeroIdIn(Collection<Long> ids) {
+        return layout.deleteValuesByHeroIdIn(ids);
+    }
+
+    static HeroesVersion toHeroesVersion(Tuple tuple) {
+        return new HeroesVersion() {
+
+            @Override
+            public long getHeroes() {
+                return tuple.get("heroes", Number.class).longValue();
+            }
+
+            @Override
+            public long getVersions() {
+                return tuple.get("versions", Number.class).longValue();
+            }
+
+            @Override
+            public long getIds() {
+                return tuple.get("ids", Number.class).longValue();
+            }
+
+            @Override
+            public long getLastId() {
+                return tuple.get("lastId", Number.class).longValue();
+            }
+
+        };
+    }
+
+}
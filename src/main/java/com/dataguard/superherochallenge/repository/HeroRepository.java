@@ -1,23 +1,57 @@
 package com.dataguard.superherochallenge.repository;
 
 import com.dataguard.superherochallenge.entity.Hero;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface HeroRepository extends JpaRepository<Hero, Long> {
+public interface HeroRepository extends JpaRepository<Hero, Long>, HeroPropertyRepository {
 
     Optional<Hero> findByName(final String name);
 
-    @Query("select h from Hero h WHERE :power in elements(h.powers)")
-    List<Hero> findByPower(@Param("power") final String value);
+    List<Hero> findByNameIn(final Collection<String> names);
 
-    @Query("select h from Hero h WHERE :weapon in elements(h.weapons)")
-    List<Hero> findByWeapon(@Param("weapon") final String value);
+    @Query("select h.name from Hero h")
+    Stream<String> streamAllNames();
 
-    @Query("select h from Hero h WHERE :association in elements(h.associations)")
-    List<Hero> findByAssociation(@Param("association") final String value);
+    @Query("select h.name from Hero h WHERE h.name in :names")
+    List<String> findNamesByNameIn(@Param("names") final Collection<String> names);
+
+    List<Hero> findByIdInOrderById(final Collection<Long> ids);
+
+    // Aggregate versions: one indexed query instead of loading the heroes, so an unchanged list is answered
+    // with 304 before anything is read
+    @Query(HeroPropertyRepositoryImpl.HEROES_VERSION)
+    HeroesVersion findHeroesVersion();
+
+    // Keyset pages: seek on the id instead of using an offset, so every page costs the same
+    @Query("select h.id from Hero h WHERE h.id > :after order by h.id")
+    List<Long> findIdsAfter(@Param("after") final Long after, final Pageable pageable);
+
+    // Deletes keyed by id, so removing heroes never loads them: deleteValuesByHeroIdIn goes first. Hibernate then
+    // drops the cached heroes.
+    @Modifying
+    @Transactional
+    @Query("delete from Hero h WHERE h.id in :ids")
+    int deleteHeroesByIdIn(@Param("ids") final Collection<Long> ids);
+
+    interface HeroesVersion {
+
+        long getHeroes();
+
+        long getVersions();
+
+        long getIds();
+
+        long getLastId();
+
+    }
 
 }
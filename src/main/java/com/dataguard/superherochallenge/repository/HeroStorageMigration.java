@@ -0,0 +1,144 @@
+package com.dataguard.superherochallenge.repository;
+
+import com.dataguard.superherochallenge.entity.HeroProperty;
+import com.dataguard.superherochallenge.entity.HeroValueArrayConverter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Moves the powers, weapons and associations of the heroes into the layout of hero.storage.layout when the database
+// still holds them in the other one. With spring.jpa.hibernate.ddl-auto=update Hibernate creates the structures
+// of the new layout and leaves the old ones, which are read, copied and dropped here before the application
+// serves anything. Nothing happens when the old structures aren't there, so it runs on every start.
+//
+// Collections to compact: one UPDATE per property folds the rows of a hero into its JSON array, in position order,
+// once every array is known to fit its column, and the table is dropped in the same transaction.
+// Compact to collections: the arrays are split into rows by chunks of heroes, each chunk in its own transaction
+// clearing the arrays it copied, so an interrupted migration resumes where it stopped.
+@Slf4j
+@Component
+public class HeroStorageMigration {
+
+    private static final String COMPACT = "compact";
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String layout;
+
+    public HeroStorageMigration(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                @Value("${hero.storage.layout:collections}") String layout) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.layout = layout;
+    }
+
+    // Before ApplicationReadyEvent, when HeroPropertyIndex reads the heroes
+    @EventListener(ContextRefreshedEvent.class)
+    public void migrate() {
+        for (HeroProperty property : HeroProperty.values()) {
+            if (COMPACT.equals(layout) && tableExists(property.getCollectionTable())) {
+                toCompact(property);
+            } else if (!COMPACT.equals(layout) && columnExists(property.getArrayColumn())) {
+                toCollections(property);
+            }
+        }
+    }
+
+    private void toCompact(HeroProperty property) {
+        var table = property.getCollectionTable();
+        var array = property.getArrayColumn();
+        var column = property.getValueIdColumn();
+        checkArraysFit(property);
+        // H2 commits before a DDL statement: the copy is committed even if the drop fails, and is then resumed
+        // on the next start by the heroes whose array is still null
+        var heroes = transactionTemplate.execute(status -> {
+            var copied = jdbcTemplate.update("UPDATE hero h SET " + array + " = (SELECT '[' || LISTAGG("
+                + "COALESCE(CAST(" + column + " AS VARCHAR), 'null'), ',') WITHIN GROUP (ORDER BY position)"
+                + " || ']' FROM " + table + " v WHERE v.hero_id = h.id) WHERE " + array + " IS NULL"
+                + " AND EXISTS (SELECT 1 FROM " + table + " v WHERE v.hero_id = h.id)");
+            jdbcTemplate.execute("DROP TABLE " + table);
+            return copied;
+        });
+        log.info("[migrate] {} of {} heroes moved to the {} column", table, heroes, array);
+    }
+
+    // The longest array to write, brackets and commas included, must fit its column: otherwise nothing is copied
+    // and the application doesn't start, rather than failing halfway or leaving heroes it can't save
+    private void checkArraysFit(HeroProperty property) {
+        var longest = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(length), 0) FROM (SELECT SUM(LENGTH("
+            + "COALESCE(CAST(" + property.getValueIdColumn() + " AS VARCHAR), 'null'))) + COUNT(*) + 1 AS length"
+            + " FROM " + property.getCollectionTable() + " GROUP BY hero_id) a", Long.class);
+        if (longest > HeroValueArrayConverter.MAXIMUM_LENGTH) {
+            throw new IllegalStateException("Unable to move " + property.getCollectionTable() + " to the "
+                + property.getArrayColumn() + " column: a hero has " + property.getAttribute() + " taking "
+                + longest + " characters, at most " + HeroValueArrayConverter.MAXIMUM_LENGTH
+                + " fit. Keep hero.storage.layout=collections");
+        }
+    }
+
+    private void toCollections(HeroProperty property) {
+        var table = property.getCollectionTable();
+        var array = property.getArrayColumn();
+        var heroes = 0;
+        int migrated;
+        do {
+            migrated = transactionTemplate.execute(status -> {
+                var arrays = jdbcTemplate.queryForList("SELECT id, " + array + " FROM hero WHERE "
+                    + array + " IS NOT NULL ORDER BY id LIMIT " + CHUNK_SIZE);
+                var rows = new ArrayList<Object[]>();
+                for (Map<String, Object> hero : arrays) {
+                    var ids = parse((String) hero.get(array));
+                    for (int position = 0; position < ids.size(); position++) {
+                        rows.add(new Object[]{hero.get("id"), position, ids.get(position)});
+                    }
+                }
+                jdbcTemplate.batchUpdate("INSERT INTO " + table + " (hero_id, position, "
+                    + property.getValueIdColumn() + ") VALUES (?, ?, ?)", rows);
+                if (!arrays.isEmpty()) {
+                    jdbcTemplate.update("UPDATE hero SET " + array + " = NULL WHERE id IN ("
+                        + arrays.stream().map(hero -> hero.get("id").toString()).collect(Collectors.joining(", "))
+                        + ")");
+                }
+                return arrays.size();
+            });
+            heroes += migrated;
+        } while (migrated == CHUNK_SIZE);
+        jdbcTemplate.execute("ALTER TABLE hero DROP COLUMN " + array);
+        log.info("[migrate] {} column of {} heroes moved to {}", array, heroes, table);
+    }
+
+    // The dictionary ids of a JSON array, with its nulls
+    private static List<Integer> parse(String json) {
+        var ids = new ArrayList<Integer>();
+        var values = json.substring(1, json.length() - 1);
+        if (!values.isEmpty()) {
+            for (String id : values.split(",")) {
+                ids.add("null".equals(id) ? null : Integer.valueOf(id));
+            }
+        }
+        return ids;
+    }
+
+    private boolean tableExists(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = ?",
+            Integer.class, table.toUpperCase()) > 0;
+    }
+
+    private boolean columnExists(String column) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS"
+            + " WHERE TABLE_NAME = 'HERO' AND COLUMN_NAME = ?", Integer.class, column.toUpperCase()) > 0;
+    }
+
+}
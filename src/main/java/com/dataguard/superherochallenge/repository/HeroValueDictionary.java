@@ -0,0 +1,231 @@
+package com.dataguard.superherochallenge.repository;
+
+import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.entity.HeroProperty;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Powers, weapons and associations are stored once, in a dictionary table per property, and the collection
+// tables keep only their integer ids. Every value decoded is the dictionary's own instance, so a value shared
+// by thousands of heroes is a single String on the heap however many heroes and DTOs hold it.
+//
+// Dictionary rows are never changed nor deleted, so an id once known stays valid. An id or a value not known yet is
+// read by its key: other instances, or the reactive stack, take ids from the same sequence and may commit them in
+// any order. A value seen for the first time is inserted on the connection of the transaction writing the hero, so
+// it never waits for a second connection from the pool, and it's only shared with other requests once that
+// transaction commits. Another instance adding the same value concurrently is caught by the unique constraint,
+// behind a savepoint.
+// Values looked up and missing are remembered for a while, so searching unknown values doesn't query the table.
+// Finding a value added elsewhere forgets them, as they may have been added too.
+@Slf4j
+@Component
+public class HeroValueDictionary {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<HeroProperty, Entries> dictionaries = new EnumMap<>(HeroProperty.class);
+    private final Map<HeroProperty, Cache<String, Boolean>> missing = new EnumMap<>(HeroProperty.class);
+
+    public HeroValueDictionary(DataSource dataSource,
+                               @Value("${hero.dictionary.missing-values.maximum-size:10000}") long maximumMissing,
+                               @Value("${hero.dictionary.missing-values.time-to-live:1m}") Duration missingTimeToLive) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        for (HeroProperty property : HeroProperty.values()) {
+            dictionaries.put(property, new Entries());
+            missing.put(property, CacheBuilder.newBuilder()
+                .maximumSize(maximumMissing)
+                .expireAfterWrite(missingTimeToLive.toMillis(), TimeUnit.MILLISECONDS)
+                .build());
+        }
+    }
+
+    // Called by the services before the hero is flushed, so its new values are inserted ahead of its statements
+    public void addValues(Hero hero) {
+        addValues(HeroProperty.POWER, hero.getPowers());
+        addValues(HeroProperty.WEAPON, hero.getWeapons());
+        addValues(HeroProperty.ASSOCIATION, hero.getAssociations());
+    }
+
+    // The id of the value, which is added to the dictionary when it isn't there yet
+    public int encode(HeroProperty property, String value) {
+        return Optional.ofNullable(dictionaries.get(property).ids.get(value))
+            .or(() -> Optional.ofNullable(pending(property, false)).map(entries -> entries.ids.get(value)))
+            .or(() -> find(property, value))
+            .orElseGet(() -> insert(property, value));
+    }
+
+    // The id of the value, if any hero ever had it: lookups never add values. The values the current transaction
+    // added come before the missing ones, which are only invalidated once it commits.
+    public Optional<Integer> find(HeroProperty property, String value) {
+        var id = Optional.ofNullable(dictionaries.get(property).ids.get(value))
+            .or(() -> Optional.ofNullable(pending(property, false)).map(entries -> entries.ids.get(value)));
+        if (id.isEmpty() && missing.get(property).getIfPresent(value) == null) {
+            id = selectByValue(property, value).map(Entry::getId);
+            if (id.isEmpty()) {
+                missing.get(property).put(value, Boolean.TRUE);
+            }
+        }
+        return id;
+    }
+
+    public String decode(HeroProperty property, int id) {
+        var value = dictionaries.get(property).values.get(id);
+        if (value == null) {
+            value = Optional.ofNullable(pending(property, false)).map(entries -> entries.values.get(id)).orElse(null);
+        }
+        if (value == null) {
+            value = selectById(property, id)
+                .map(found -> dictionaries.get(property).values.getOrDefault(id, found.getValue()))
+                .orElseThrow(() -> new IllegalStateException("No " + property.getName() + " with id " + id));
+        }
+        return value;
+    }
+
+    private void addValues(HeroProperty property, String[] values) {
+        if (values != null) {
+            for (String value : values) {
+                if (value != null) {
+                    encode(property, value);
+                }
+            }
+        }
+    }
+
+    private Optional<Entry> selectById(HeroProperty property, int id) {
+        return select(property, "id", id);
+    }
+
+    private Optional<Entry> selectByValue(HeroProperty property, String value) {
+        return select(property, property.getName(), value);
+    }
+
+    // A row added by another instance, or by this one before it knew it. Inside a transaction the values it added
+    // are visible too, but they're only taken once it commits.
+    private Optional<Entry> select(HeroProperty property, String column, Object key) {
+        var sql = "SELECT id, " + property.getName() + " FROM " + property.getDictionaryTable()
+            + " WHERE " + column + " = ?";
+        var entry = jdbcTemplate.query(sql, (row, number) -> new Entry(row.getInt(1), row.getString(2)), key)
+            .stream()
+            .findFirst();
+        var pending = pending(property, false);
+        entry.filter(found -> pending == null || !pending.values.containsKey(found.getId()))
+            .ifPresent(found -> {
+                publish(property, found.getId(), found.getValue());
+                missing.get(property).invalidateAll();
+            });
+        return entry;
+    }
+
+    private int insert(HeroProperty property, String value) {
+        var id = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            var savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+            try (var next = connection.prepareStatement("SELECT NEXT VALUE FOR "
+                     + property.getDictionaryTable() + "_sequence");
+                 var keys = next.executeQuery();
+                 var insert = connection.prepareStatement("INSERT INTO " + property.getDictionaryTable()
+                     + " (id, " + property.getName() + ") VALUES (?, ?)")) {
+                keys.next();
+                insert.setInt(1, keys.getInt(1));
+                insert.setString(2, value);
+                insert.executeUpdate();
+                return keys.getInt(1);
+            } catch (SQLException e) {
+                log.info("[insert] {} '{}' not added, reading it from the dictionary: {}", property.getName(), value,
+                    e.getMessage());
+                if (savepoint != null) {
+                    connection.rollback(savepoint);
+                }
+                return null;
+            }
+        });
+        if (id == null) {
+            return selectByValue(property, value)
+                .map(Entry::getId)
+                .orElseThrow(() -> new DataAccessResourceFailureException("Unable to add " + property.getName()
+                    + " '" + value + "' to the dictionary"));
+        }
+
+        var pending = pending(property, true);
+        if (pending == null) {
+            // no transaction: the insert is already committed
+            publish(property, id, value);
+        } else {
+            pending.put(id, value);
+        }
+        return id;
+    }
+
+    private void publish(HeroProperty property, int id, String value) {
+        dictionaries.get(property).put(id, value);
+        missing.get(property).invalidate(value);
+    }
+
+    // The values the current transaction added, published once it commits and dropped if it rolls back.
+    // Null outside a transaction, or when it added none and create is false.
+    private Entries pending(HeroProperty property, boolean create) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        var pending = (Map<HeroProperty, Entries>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null && !create) {
+            return null;
+        }
+        if (pending == null) {
+            var added = new EnumMap<HeroProperty, Entries>(HeroProperty.class);
+            TransactionSynchronizationManager.bindResource(this, added);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(HeroValueDictionary.this);
+                    if (status == STATUS_COMMITTED) {
+                        added.forEach((property, entries) -> entries.values.forEach((id, value) ->
+                            publish(property, id, value)));
+                    }
+                }
+            });
+            pending = added;
+        }
+        return create ? pending.computeIfAbsent(property, key -> new Entries()) : pending.get(property);
+    }
+
+    private static class Entries {
+
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private final Map<Integer, String> values = new ConcurrentHashMap<>();
+
+        // Entries never change, so threads putting the same one agree: the first instance of the value is kept
+        private void put(int id, String value) {
+            var canonical = Optional.ofNullable(values.putIfAbsent(id, value)).orElse(value);
+            ids.putIfAbsent(canonical, id);
+        }
+
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Entry {
+
+        private final int id;
+        private final String value;
+
+    }
+
+}
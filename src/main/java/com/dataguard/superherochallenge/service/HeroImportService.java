@@ -0,0 +1,10 @@
+package com.dataguard.superherochallenge.service;
+
+import com.dataguard.superherochallenge.dto.BulkImportResultDto;
+import java.io.InputStream;
+
+public interface HeroImportService {
+
+    BulkImportResultDto importHeroes(final InputStream ndjson);
+
+}
@@ -0,0 +1,11 @@
+package com.dataguard.superherochallenge.service;
+
+import com.dataguard.superherochallenge.dto.HeroMultiGetDto;
+import com.dataguard.superherochallenge.dto.HeroMultiGetItemDto;
+import java.util.List;
+
+public interface HeroMultiGetService {
+
+    List<HeroMultiGetItemDto> findHeroes(final HeroMultiGetDto heroMultiGetDto);
+
+}
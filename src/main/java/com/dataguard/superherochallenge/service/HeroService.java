@@ -1,9 +1,14 @@
 package com.dataguard.superherochallenge.service;
 
+import com.dataguard.superherochallenge.dto.BulkDeleteResultDto;
 import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.dto.HeroPageDto;
+import com.dataguard.superherochallenge.dto.HeroPatchDto;
 import com.dataguard.superherochallenge.entity.Hero;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface HeroService {
 
@@ -11,14 +16,35 @@ public interface HeroService {
 
     List<HeroDto> findAllHeroes();
 
+    String findAllHeroesVersion();
+
+    HeroPageDto findHeroesPage(final String after, final int limit);
+
+    void streamAllHeroes(final Consumer<HeroDto> consumer);
+
     List<HeroDto> findHeroesByProperty(final String property, final String value);
 
+    String findHeroesByPropertyVersion(final String property, final String value);
+
+    HeroPageDto findHeroesByPropertyPage(final String property, final String value, final String after,
+                                         final int limit);
+
+    List<HeroDto> findHeroesByQuery(final String query);
+
+    HeroPageDto findHeroesByQueryPage(final String query, final String after, final int limit);
+
     Optional<HeroDto> findHeroByName(final String name);
 
     Hero findHeroById(final Long id);
 
     HeroDto updateHero(final Long heroId, final HeroDto heroDto);
 
+    HeroDto updateHero(final Long heroId, final HeroDto heroDto, final Long expectedVersion);
+
+    HeroDto patchHero(final Long heroId, final HeroPatchDto heroPatchDto, final Long expectedVersion);
+
     void deleteHero(final Long heroId);
 
+    BulkDeleteResultDto deleteHeroes(final Collection<Long> heroIds);
+
 }
@@ -6,4 +6,9 @@ public class ObjectNotFoundException extends RuntimeException {
         super(message);
     }
 
+    // For expected misses, where filling in the stack trace would cost more than the lookup
+    public ObjectNotFoundException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
 }
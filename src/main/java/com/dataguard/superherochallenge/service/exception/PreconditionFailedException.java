@@ -0,0 +1,9 @@
+package com.dataguard.superherochallenge.service.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+
+}
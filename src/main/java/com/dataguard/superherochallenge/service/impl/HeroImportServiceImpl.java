@@ -0,0 +1,285 @@
+package com.dataguard.superherochallenge.service.impl;
+
+import com.dataguard.superherochallenge.adapter.HeroAdapter;
+import com.dataguard.superherochallenge.cache.HeroNameCache;
+import com.dataguard.superherochallenge.cache.HeroResponseCache;
+import com.dataguard.superherochallenge.dto.BulkImportErrorDto;
+import com.dataguard.superherochallenge.dto.BulkImportResultDto;
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.entity.HeroValueArrayConverter.ArrayTooLongException;
+import com.dataguard.superherochallenge.index.HeroNameFilter;
+import com.dataguard.superherochallenge.index.HeroPropertyIndex;
+import com.dataguard.superherochallenge.repository.HeroRepository;
+import com.dataguard.superherochallenge.repository.HeroValueDictionary;
+import com.dataguard.superherochallenge.service.HeroImportService;
+import com.dataguard.superherochallenge.service.exception.BadRequestException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Slf4j
+@Service
+public class HeroImportServiceImpl implements HeroImportService {
+
+    private static final String CONFLICT_MESSAGE = "Hero already exists";
+
+    private final HeroRepository heroRepository;
+    private final HeroAdapter heroAdapter;
+    private final HeroPropertyIndex heroPropertyIndex;
+    private final HeroNameFilter heroNameFilter;
+    private final HeroNameCache heroNameCache;
+    private final HeroResponseCache heroResponseCache;
+    private final HeroValueDictionary heroValueDictionary;
+    private final ObjectReader heroReader;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public HeroImportServiceImpl(HeroRepository heroRepository,
+                                 HeroAdapter heroAdapter,
+                                 HeroPropertyIndex heroPropertyIndex,
+                                 HeroNameFilter heroNameFilter,
+                                 HeroNameCache heroNameCache,
+                                 HeroResponseCache heroResponseCache,
+                                 HeroValueDictionary heroValueDictionary,
+                                 ObjectMapper objectMapper,
+                                 Validator validator,
+                                 TransactionTemplate transactionTemplate,
+                                 EntityManager entityManager,
+                                 @Value("${hero.bulk.batch-size:500}") int batchSize,
+                                 @Value("${hero.bulk.max-reported-errors:1000}") int maxReportedErrors) {
+        this.heroRepository = heroRepository;
+        this.heroAdapter = heroAdapter;
+        this.heroPropertyIndex = heroPropertyIndex;
+        this.heroNameFilter = heroNameFilter;
+        this.heroNameCache = heroNameCache;
+        this.heroResponseCache = heroResponseCache;
+        this.heroValueDictionary = heroValueDictionary;
+        this.heroReader = objectMapper.readerFor(HeroDto.class);
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    @Override
+    public BulkImportResultDto importHeroes(InputStream ndjson) {
+        log.info("[importHeroes] start importing heroes in batches of {}", batchSize);
+        var result = new ImportResult();
+        var batch = new ArrayList<Row>(batchSize);
+
+        try (var reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+            var lineNumber = 0L;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (!line.isBlank()) {
+                    parse(line, lineNumber, result).ifPresent(batch::add);
+                }
+                if (batch.size() == batchSize) {
+                    insert(batch, result);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                insert(batch, result);
+            }
+        } catch (IOException e) {
+            throw new BadRequestException("Unable to read the heroes: " + e.getMessage());
+        }
+
+        log.info("[importHeroes] {} heroes imported and {} rejected", result.imported, result.failed);
+        return BulkImportResultDto.builder()
+            .imported(result.imported)
+            .failed(result.failed)
+            .errors(result.errors)
+            .build();
+    }
+
+    private Optional<Row> parse(String line, long lineNumber, ImportResult result) {
+        HeroDto heroDto;
+        try {
+            heroDto = heroReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            result.reject(lineNumber, null, "Invalid hero: " + e.getOriginalMessage());
+            return Optional.empty();
+        }
+
+        var violations = validator.validate(heroDto);
+        if (!violations.isEmpty()) {
+            result.reject(lineNumber, heroDto.getName(), violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", ")));
+            return Optional.empty();
+        }
+        return Optional.of(new Row(lineNumber, heroDto));
+    }
+
+    private void insert(List<Row> batch, ImportResult result) {
+        var rows = withoutConflicts(batch, result);
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        var inserted = new ArrayList<Hero>(rows.size());
+        try {
+            var heroes = rows.stream()
+                .map(row -> heroAdapter.adapterHeroDtoToHero(row.getHeroDto()))
+                .collect(Collectors.toList());
+
+            // One transaction and one JDBC batch per table for the whole chunk
+            transactionTemplate.executeWithoutResult(status -> {
+                heroes.forEach(heroValueDictionary::addValues);
+                heroRepository.saveAllAndFlush(heroes);
+                entityManager.clear();
+            });
+            inserted.addAll(heroes);
+        } catch (DataAccessException e) {
+            // A concurrent insert took one of the names, or a row doesn't fit its columns: retry the chunk
+            // row by row to find it
+            log.info("[insert] batch rejected, retrying row by row: {}", e.getMostSpecificCause().getMessage());
+            rows.forEach(row -> insertRow(row, result).ifPresent(inserted::add));
+        }
+        index(inserted);
+        result.imported += inserted.size();
+    }
+
+    // Only a taken name is a conflict: any other failure rejects the row with its cause, and the import goes on
+    private Optional<Hero> insertRow(Row row, ImportResult result) {
+        try {
+            return Optional.ofNullable(transactionTemplate.execute(status -> {
+                var hero = heroAdapter.adapterHeroDtoToHero(row.getHeroDto());
+                heroValueDictionary.addValues(hero);
+                return heroRepository.saveAndFlush(hero);
+            }));
+        } catch (DataIntegrityViolationException e) {
+            if (isNameTaken(e)) {
+                result.reject(row.getLine(), row.getHeroDto().getName(), CONFLICT_MESSAGE);
+            } else {
+                reject(row, e, result);
+            }
+            return Optional.empty();
+        } catch (DataAccessException e) {
+            reject(row, e, result);
+            return Optional.empty();
+        }
+    }
+
+    private void reject(Row row, DataAccessException e, ImportResult result) {
+        var cause = e.getMostSpecificCause();
+        if (!(cause instanceof ArrayTooLongException)) {
+            log.warn("[insertRow] line {} not imported: {}", row.getLine(), cause.getMessage());
+        }
+        result.reject(row.getLine(), row.getHeroDto().getName(), cause.getMessage());
+    }
+
+    private static boolean isNameTaken(DataIntegrityViolationException e) {
+        var constraint = e.getCause() instanceof ConstraintViolationException
+            ? ((ConstraintViolationException) e.getCause()).getConstraintName()
+            : null;
+        return Optional.ofNullable(constraint)
+            .orElseGet(() -> e.getMostSpecificCause().getMessage())
+            .toLowerCase(Locale.ROOT)
+            .contains(Hero.NAME_CONSTRAINT);
+    }
+
+    // Rejects the names repeated in the chunk and the ones already saved, checking only the names
+    // the filter might have seen
+    private List<Row> withoutConflicts(List<Row> batch, ImportResult result) {
+        var names = new HashSet<String>();
+        var rows = new ArrayList<Row>(batch.size());
+
+        for (Row row : batch) {
+            if (names.add(row.getHeroDto().getName())) {
+                rows.add(row);
+            } else {
+                result.reject(row.getLine(), row.getHeroDto().getName(), CONFLICT_MESSAGE);
+            }
+        }
+
+        var candidates = names.stream()
+            .filter(heroNameFilter::mightContain)
+            .collect(Collectors.toList());
+        if (candidates.isEmpty()) {
+            return rows;
+        }
+
+        var existing = new HashSet<>(heroRepository.findNamesByNameIn(candidates));
+        return rows.stream()
+            .filter(row -> {
+                if (existing.contains(row.getHeroDto().getName())) {
+                    result.reject(row.getLine(), row.getHeroDto().getName(), CONFLICT_MESSAGE);
+                    return false;
+                }
+                return true;
+            })
+            .collect(Collectors.toList());
+    }
+
+    // The caches are dropped once per chunk, not once per hero
+    private void index(List<Hero> heroes) {
+        if (heroes.isEmpty()) {
+            return;
+        }
+        heroes.forEach(hero -> {
+            heroNameFilter.add(hero.getName());
+            heroPropertyIndex.add(hero);
+        });
+        heroNameCache.invalidate(heroes.stream().map(Hero::getName).toArray(String[]::new));
+        heroResponseCache.invalidate();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Row {
+
+        private final long line;
+        private final HeroDto heroDto;
+
+    }
+
+    private class ImportResult {
+
+        private final List<BulkImportErrorDto> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+
+        private void reject(long line, String name, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new BulkImportErrorDto(line, name, message));
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.dataguard.superherochallenge.service.impl;
+
+import com.dataguard.superherochallenge.adapter.HeroAdapter;
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.dto.HeroMultiGetDto;
+import com.dataguard.superherochallenge.dto.HeroMultiGetItemDto;
+import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.index.HeroNameFilter;
+import com.dataguard.superherochallenge.metrics.HeroOperation;
+import com.dataguard.superherochallenge.repository.HeroRepository;
+import com.dataguard.superherochallenge.service.HeroMultiGetService;
+import com.dataguard.superherochallenge.service.exception.BadRequestException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+// Resolves a whole roster at once: one IN query per chunk of distinct keys, whose collections are loaded by
+// their subselects, instead of one request and one query per hero
+@Slf4j
+@Service
+public class HeroMultiGetServiceImpl implements HeroMultiGetService {
+
+    private static final int KEY_CHUNK_SIZE = 1000;
+
+    private final HeroRepository heroRepository;
+    private final HeroAdapter heroAdapter;
+    private final HeroNameFilter heroNameFilter;
+    private final int maxKeys;
+
+    public HeroMultiGetServiceImpl(HeroRepository heroRepository,
+                                   HeroAdapter heroAdapter,
+                                   HeroNameFilter heroNameFilter,
+                                   @Value("${hero.multi-get.max-keys:100}") int maxKeys) {
+        this.heroRepository = heroRepository;
+        this.heroAdapter = heroAdapter;
+        this.heroNameFilter = heroNameFilter;
+        this.maxKeys = maxKeys;
+    }
+
+    @Override
+    @HeroOperation
+    public List<HeroMultiGetItemDto> findHeroes(HeroMultiGetDto heroMultiGetDto) {
+        var names = Optional.ofNullable(heroMultiGetDto).map(HeroMultiGetDto::getNames);
+        var ids = Optional.ofNullable(heroMultiGetDto).map(HeroMultiGetDto::getIds);
+        if (names.isPresent() == ids.isPresent()) {
+            throw new BadRequestException("Send either the names or the ids of the heroes");
+        }
+
+        var keys = names.isPresent() ? names.get().size() : ids.get().size();
+        if (keys > maxKeys) {
+            throw new BadRequestException("At most " + maxKeys + " names or ids can be requested at once");
+        }
+        log.info("[findHeroes] Finding {} heroes by {}", keys, names.isPresent() ? "name" : "id");
+        return names.isPresent() ? findByNames(names.get()) : findByIds(ids.get());
+    }
+
+    private List<HeroMultiGetItemDto> findByNames(List<String> names) {
+        // Names the filter never saw can't be in the database, so they aren't even queried
+        var heroes = findAll(names.stream().filter(heroNameFilter::mightContain), heroRepository::findByNameIn,
+            Hero::getName);
+
+        return names.stream()
+            .map(name -> HeroMultiGetItemDto.builder()
+                .name(name)
+                .found(heroes.containsKey(name))
+                .hero(heroes.get(name))
+                .build())
+            .collect(Collectors.toList());
+    }
+
+    private List<HeroMultiGetItemDto> findByIds(List<Long> ids) {
+        var heroes = findAll(ids.stream(), heroRepository::findByIdInOrderById, Hero::getId);
+
+        return ids.stream()
+            .map(id -> HeroMultiGetItemDto.builder()
+                .id(id)
+                .found(heroes.containsKey(id))
+                .hero(heroes.get(id))
+                .build())
+            .collect(Collectors.toList());
+    }
+
+    // The heroes of the distinct keys, keyed by them; every query's IN list stays bounded
+    private <K> Map<K, HeroDto> findAll(Stream<K> keys, Function<List<K>, List<Hero>> query,
+                                        Function<Hero, K> keyOf) {
+        var distinctKeys = keys.filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        var heroes = new HashMap<K, HeroDto>(distinctKeys.size());
+
+        for (int from = 0; from < distinctKeys.size(); from += KEY_CHUNK_SIZE) {
+            query.apply(distinctKeys.subList(from, Math.min(distinctKeys.size(), from + KEY_CHUNK_SIZE)))
+                .forEach(hero -> heroes.put(keyOf.apply(hero), heroAdapter.adapterHeroToHeroDto(hero)));
+        }
+        return heroes;
+    }
+
+}
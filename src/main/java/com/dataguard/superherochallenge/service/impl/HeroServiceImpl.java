@@ -1,43 +1,91 @@
 package com.dataguard.superherochallenge.service.impl;
 
 import com.dataguard.superherochallenge.adapter.HeroAdapter;
+import com.dataguard.superherochallenge.cache.HeroNameCache;
+import com.dataguard.superherochallenge.cache.HeroResponseCache;
+import com.dataguard.superherochallenge.dto.BulkDeleteResultDto;
 import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.dto.HeroPageDto;
+import com.dataguard.superherochallenge.dto.HeroPatchDto;
 import com.dataguard.superherochallenge.entity.Hero;
 import com.dataguard.superherochallenge.entity.HeroProperty;
+import com.dataguard.superherochallenge.entity.HeroValueArrayConverter.ArrayTooLongException;
+import com.dataguard.superherochallenge.index.HeroNameFilter;
+import com.dataguard.superherochallenge.index.HeroPropertyIndex;
+import com.dataguard.superherochallenge.index.HeroQuery;
+import com.dataguard.superherochallenge.metrics.HeroOperation;
 import com.dataguard.superherochallenge.repository.HeroRepository;
+import com.dataguard.superherochallenge.repository.HeroRepository.HeroesVersion;
+import com.dataguard.superherochallenge.repository.HeroValueDictionary;
 import com.dataguard.superherochallenge.service.HeroService;
 import com.dataguard.superherochallenge.service.exception.BadRequestException;
 import com.dataguard.superherochallenge.service.exception.ConflictException;
 import com.dataguard.superherochallenge.service.exception.ObjectNotFoundException;
+import com.dataguard.superherochallenge.service.exception.PreconditionFailedException;
+import com.dataguard.superherochallenge.util.CursorUtil;
+import com.dataguard.superherochallenge.util.ETagUtil;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.orm.jpa.JpaSystemException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Slf4j
 @Service
 @AllArgsConstructor
 public class HeroServiceImpl implements HeroService {
 
+    private static final int STREAM_CHUNK_SIZE = 500;
+    private static final int ID_CHUNK_SIZE = 1000;
+    private static final String INVALID_PROPERTY = "The property informed doesn't exist: try power, weapon or association";
+
     private final HeroRepository heroRepository;
     private final HeroAdapter heroAdapter;
+    private final EntityManager entityManager;
+    private final HeroPropertyIndex heroPropertyIndex;
+    private final HeroNameFilter heroNameFilter;
+    private final HeroNameCache heroNameCache;
+    private final HeroResponseCache heroResponseCache;
+    private final TransactionTemplate transactionTemplate;
+    private final HeroValueDictionary heroValueDictionary;
 
     @Override
+    @HeroOperation
     public HeroDto addNewHero(HeroDto heroDto) {
         log.info("[addNewHero] start adding new hero");
         if (Optional.ofNullable(heroDto).isPresent()) {
             var hero = heroAdapter.adapterHeroDtoToHero(heroDto);
-            var heroOptional = heroRepository.findByName(hero.getName());
 
-            if (heroOptional.isEmpty()) {
-                var heroAdded = heroRepository.save(hero);
-                log.info("[addNewHero] hero {} added with success: ID {}", heroAdded.getName(), heroAdded.getId());
-                return heroAdapter.adapterHeroToHeroDto(heroAdded);
+            // Names never seen by the filter skip the pre-check: the unique index still rejects duplicates
+            if (heroNameFilter.mightContain(hero.getName())
+                && heroRepository.findByName(hero.getName()).isPresent()) {
+                throw new ConflictException("Hero already exists");
             }
-            throw new ConflictException("Hero already exists");
+            var heroAdded = save(hero);
+            heroNameFilter.add(heroAdded.getName());
+            heroNameCache.invalidate(heroAdded.getName());
+            heroResponseCache.invalidate();
+            heroPropertyIndex.add(heroAdded);
+            log.info("[addNewHero] hero {} added with success: ID {}", heroAdded.getName(), heroAdded.getId());
+            return heroAdapter.adapterHeroToHeroDto(heroAdded);
         }
         throw new BadRequestException("Missing the hero object");
     }
@@ -51,39 +99,127 @@ public class HeroServiceImpl implements HeroService {
     }
 
     @Override
+    public String findAllHeroesVersion() {
+        return toETag(heroRepository.findHeroesVersion());
+    }
+
+    @Override
+    public HeroPageDto findHeroesPage(String after, int limit) {
+        var ids = heroRepository.findIdsAfter(CursorUtil.decode(after), PageRequest.of(0, limit + 1));
+        return buildPage(ids, limit);
+    }
+
+    @Override
+    public void streamAllHeroes(Consumer<HeroDto> consumer) {
+        log.info("[streamAllHeroes] start streaming heroes");
+        var after = 0L;
+        var streamed = 0L;
+        List<HeroDto> chunk;
+
+        do {
+            // Each chunk is read in its own transaction and written after it, so no connection is held
+            // while a slow client reads the response
+            val from = after;
+            chunk = Optional.ofNullable(transactionTemplate.execute(status -> {
+                var ids = heroRepository.findIdsAfter(from, PageRequest.of(0, STREAM_CHUNK_SIZE));
+                return ids.isEmpty() ? List.<HeroDto>of() : heroRepository.findByIdInOrderById(ids)
+                    .stream()
+                    .map(heroAdapter::adapterHeroToHeroDto)
+                    .collect(Collectors.toList());
+            })).orElse(List.of());
+            // Detach the chunk already read, so memory doesn't grow with the table
+            entityManager.clear();
+
+            chunk.forEach(consumer);
+            if (!chunk.isEmpty()) {
+                after = chunk.get(chunk.size() - 1).getId();
+                streamed += chunk.size();
+            }
+        } while (chunk.size() == STREAM_CHUNK_SIZE);
+
+        log.info("[streamAllHeroes] {} heroes streamed with success", streamed);
+    }
+
+    @Override
+    @HeroOperation
     public List<HeroDto> findHeroesByProperty(String property, String value) {
         log.info("[findHeroesByProperty] Finding heroes with property '{}' and value '{}'", property, value);
         var heroProperty = HeroProperty.adapterStringToEnum(property);
 
         if (Optional.ofNullable(heroProperty).isPresent()) {
-            switch (heroProperty) {
-                case POWER:
-                    return heroRepository.findByPower(value)
-                        .stream()
-                        .map(heroAdapter::adapterHeroToHeroDto)
-                        .collect(Collectors.toList());
-                case WEAPON:
-                    return heroRepository.findByWeapon(value)
-                        .stream()
-                        .map(heroAdapter::adapterHeroToHeroDto)
-                        .collect(Collectors.toList());
-                case ASSOCIATION:
-                    return heroRepository.findByAssociation(value)
-                        .stream()
-                        .map(heroAdapter::adapterHeroToHeroDto)
-                        .collect(Collectors.toList());
+            var heroes = heroPropertyIndex.isReady()
+                ? findHeroesByIds(heroPropertyIndex.find(heroProperty, value))
+                : findHeroesByPropertyFromDatabase(heroProperty, value);
+
+            return heroes.stream()
+                .map(heroAdapter::adapterHeroToHeroDto)
+                .collect(Collectors.toList());
+        }
+        throw new ObjectNotFoundException(INVALID_PROPERTY);
+    }
+
+    @Override
+    public String findHeroesByPropertyVersion(String property, String value) {
+        var heroProperty = Optional.ofNullable(HeroProperty.adapterStringToEnum(property))
+            .orElseThrow(() -> new ObjectNotFoundException(INVALID_PROPERTY));
+
+        if (!isStoredValue(heroProperty, value)) {
+            return ETagUtil.of(0, 0, 0, 0);
+        }
+        return toETag(heroRepository.findHeroesVersionByProperty(heroProperty, value));
+    }
+
+    @Override
+    public HeroPageDto findHeroesByPropertyPage(String property, String value, String after, int limit) {
+        log.info("[findHeroesByPropertyPage] Finding heroes with property '{}' and value '{}' after '{}'",
+            property, value, after);
+        var heroProperty = HeroProperty.adapterStringToEnum(property);
+        var afterId = CursorUtil.decode(after);
+
+        if (Optional.ofNullable(heroProperty).isPresent()) {
+            if (heroPropertyIndex.isReady()) {
+                return buildPage(seek(heroPropertyIndex.find(heroProperty, value), afterId, limit + 1), limit);
+            }
+            if (!isStoredValue(heroProperty, value)) {
+                return buildPage(List.of(), limit);
             }
+            return buildPage(heroRepository.findIdsByPropertyAfter(heroProperty, value, afterId, limit + 1), limit);
         }
-        throw new ObjectNotFoundException("The property informed doesn't exist: try power, weapon or association");
+        throw new ObjectNotFoundException(INVALID_PROPERTY);
+    }
+
+    @Override
+    public List<HeroDto> findHeroesByQuery(String query) {
+        log.info("[findHeroesByQuery] Finding heroes matching '{}'", query);
+        var heroQuery = HeroQuery.parse(query);
+
+        return findHeroesByIds(findIdsByQuery(heroQuery))
+            .stream()
+            .map(heroAdapter::adapterHeroToHeroDto)
+            .collect(Collectors.toList());
     }
 
     @Override
+    public HeroPageDto findHeroesByQueryPage(String query, String after, int limit) {
+        log.info("[findHeroesByQueryPage] Finding heroes matching '{}' after '{}'", query, after);
+        var heroQuery = HeroQuery.parse(query);
+        var afterId = CursorUtil.decode(after);
+
+        return buildPage(seek(findIdsByQuery(heroQuery), afterId, limit + 1), limit);
+    }
+
+    @Override
+    @HeroOperation
     public Optional<HeroDto> findHeroByName(String name) {
         if (Optional.ofNullable(name).isPresent()) {
             log.info("[findHeroByName] Finding hero called '{}'", name);
-            return Optional.of(heroRepository.findByName(name)
-                .map(heroAdapter::adapterHeroToHeroDto)
-                .orElseThrow(() -> new ObjectNotFoundException("Hero by name not found")));
+            // Names the filter never saw can't be in the database: they're neither looked up nor cached, so the
+            // cache only keeps the misses the database answered
+            var heroDto = (heroNameFilter.mightContain(name)
+                ? heroNameCache.get(name, this::findHeroDtoByName)
+                : Optional.<HeroDto>empty())
+                .orElseThrow(() -> new ObjectNotFoundException("Hero by name not found", false));
+            return Optional.of(heroDto);
         }
         throw new BadRequestException("Missing field name");
     }
@@ -98,29 +234,266 @@ public class HeroServiceImpl implements HeroService {
     }
 
     @Override
+    @HeroOperation
     public HeroDto updateHero(Long heroId, HeroDto heroDto) {
+        return updateHero(heroId, heroDto, null);
+    }
+
+    @Override
+    @HeroOperation
+    public HeroDto updateHero(Long heroId, HeroDto heroDto, Long expectedVersion) {
         if (Optional.ofNullable(heroId).isPresent()) {
             log.info("[updateHero] start updating hero");
             val heroFound = findHeroById(heroId);
+            checkVersion(heroFound, expectedVersion);
             val hero = heroAdapter.adapterHeroToBeUpdated(heroFound, heroDto);
 
-            heroRepository.save(hero);
+            val heroUpdated = save(hero);
+            heroNameFilter.add(hero.getName());
+            heroNameCache.invalidate(heroFound.getName(), hero.getName());
+            heroResponseCache.invalidate();
+            heroPropertyIndex.update(heroUpdated);
             log.info("[updateHero] hero updated with success");
+            return heroAdapter.adapterHeroToHeroDto(heroUpdated);
+        }
+        throw new BadRequestException("Missing param id to get the user");
+    }
+
+    @Override
+    @HeroOperation
+    public HeroDto patchHero(Long heroId, HeroPatchDto heroPatchDto, Long expectedVersion) {
+        if (Optional.ofNullable(heroId).isPresent()) {
+            if (Optional.ofNullable(heroPatchDto).isEmpty()) {
+                throw new BadRequestException("Missing the patch object");
+            }
+            log.info("[patchHero] start patching hero");
+            // One transaction from the load to the flush: the hero stays managed, so Hibernate writes only
+            // the columns and the collection rows the patch changed
+            val heroPatched = transactionTemplate.execute(status -> {
+                val heroFound = findHeroById(heroId);
+                checkVersion(heroFound, expectedVersion);
+                val heroBefore = copyOf(heroFound);
+
+                heroAdapter.adapterPatchToHero(heroFound, heroPatchDto);
+                heroValueDictionary.addValues(heroFound);
+                write(heroFound, heroRepository::flush);
+                return new PatchedHero(heroBefore, heroFound);
+            });
+
+            val hero = heroPatched.getAfter();
+            heroNameFilter.add(hero.getName());
+            heroNameCache.invalidate(heroPatched.getBefore().getName(), hero.getName());
+            heroResponseCache.invalidate();
+            heroPropertyIndex.update(hero);
+            log.info("[patchHero] hero patched with success");
             return heroAdapter.adapterHeroToHeroDto(hero);
         }
         throw new BadRequestException("Missing param id to get the user");
     }
 
     @Override
+    @HeroOperation
     public void deleteHero(Long heroId) {
         if (Optional.ofNullable(heroId).isPresent()) {
             log.info("[deleteHero] start deleting hero");
-            val hero = findHeroById(heroId);
-
-            heroRepository.delete(hero);
+            if (deleteByIds(List.of(heroId)) == 0) {
+                throw new ObjectNotFoundException("Hero doesn't find");
+            }
             log.info("[deleteHero] hero deleted with success");
         } else {
             throw new BadRequestException("Missing param id to get the user");
         }
     }
+
+    @Override
+    @HeroOperation
+    public BulkDeleteResultDto deleteHeroes(Collection<Long> heroIds) {
+        if (Optional.ofNullable(heroIds).isPresent()) {
+            val ids = heroIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+            log.info("[deleteHeroes] start deleting {} heroes", ids.size());
+
+            // One transaction per chunk: a failure keeps the chunks already deleted, and retrying is harmless
+            var deleted = 0;
+            for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+                deleted += deleteByIds(ids.subList(from, Math.min(ids.size(), from + ID_CHUNK_SIZE)));
+            }
+            log.info("[deleteHeroes] {} heroes deleted with success", deleted);
+            return BulkDeleteResultDto.builder()
+                .requested(ids.size())
+                .deleted(deleted)
+                .build();
+        }
+        throw new BadRequestException("Missing param ids to delete the heroes");
+    }
+
+    private Optional<HeroDto> findHeroDtoByName(String name) {
+        return heroRepository.findByName(name).map(heroAdapter::adapterHeroToHeroDto);
+    }
+
+    // The new values go to the dictionary first, in the same transaction, so the flush finds all their ids
+    private Hero save(Hero hero) {
+        return write(hero, () -> transactionTemplate.execute(status -> {
+            heroValueDictionary.addValues(hero);
+            return heroRepository.save(hero);
+        }));
+    }
+
+    private void write(Hero hero, Runnable write) {
+        write(hero, () -> {
+            write.run();
+            return hero;
+        });
+    }
+
+    // Constraint violations, version conflicts and values not fitting their columns surface when the statements
+    // run, whatever wrote them
+    private <T> T write(Hero hero, Supplier<T> write) {
+        try {
+            return write.get();
+        } catch (JpaSystemException e) {
+            if (e.getMostSpecificCause() instanceof ArrayTooLongException) {
+                throw new BadRequestException(e.getMostSpecificCause().getMessage());
+            }
+            throw e;
+        } catch (DataIntegrityViolationException e) {
+            log.info("[write] hero {} violates a constraint: {}", hero.getName(), e.getMostSpecificCause().getMessage());
+            throw new ConflictException("Hero already exists");
+        } catch (ObjectOptimisticLockingFailureException e) {
+            log.info("[write] hero {} was changed by another request", hero.getId());
+            throw new PreconditionFailedException(ETagUtil.STALE_HERO);
+        }
+    }
+
+    // A stale copy fails before anything is written; a write racing past this check is still caught
+    // by the version column
+    private void checkVersion(Hero hero, Long expectedVersion) {
+        if (Optional.ofNullable(expectedVersion).isPresent() && expectedVersion != hero.getVersion()) {
+            throw new PreconditionFailedException(ETagUtil.STALE_HERO);
+        }
+    }
+
+    private Hero copyOf(Hero hero) {
+        return Hero.builder()
+            .id(hero.getId())
+            .version(hero.getVersion())
+            .name(hero.getName())
+            .alias(hero.getAlias())
+            .origin(hero.getOrigin())
+            .powers(hero.getPowers())
+            .weapons(hero.getWeapons())
+            .associations(hero.getAssociations())
+            .build();
+    }
+
+    // A statement per table for the whole chunk, keyed by id: the heroes and their values are never loaded.
+    // Their names and values aren't known either, so the caches and the index drop them by id.
+    private int deleteByIds(List<Long> ids) {
+        val deleted = Optional.ofNullable(transactionTemplate.execute(status -> {
+            heroRepository.deleteValuesByHeroIdIn(ids);
+            return heroRepository.deleteHeroesByIdIn(ids);
+        })).orElse(0);
+
+        if (deleted > 0) {
+            heroNameCache.invalidateIds(ids);
+            heroResponseCache.invalidate();
+            heroPropertyIndex.removeAll(ids);
+        }
+        return deleted;
+    }
+
+    // The queries compare the dictionary ids of the values: a value no hero ever had has no id, and no heroes.
+    // Checked first so that looking it up doesn't add it to the dictionary.
+    private boolean isStoredValue(HeroProperty heroProperty, String value) {
+        return heroValueDictionary.find(heroProperty, value).isPresent();
+    }
+
+    private String toETag(HeroesVersion version) {
+        return ETagUtil.of(version.getHeroes(), version.getVersions(), version.getIds(), version.getLastId());
+    }
+
+    private List<Hero> findHeroesByPropertyFromDatabase(HeroProperty heroProperty, String value) {
+        if (!isStoredValue(heroProperty, value)) {
+            return List.of();
+        }
+        return heroRepository.findByProperty(heroProperty, value);
+    }
+
+    // Until the index is built, every term is a query of the database: its ids are intersected inside each AND group,
+    // which stops at the first term without heroes, and the groups are merged
+    private List<Long> findIdsByQuery(HeroQuery heroQuery) {
+        if (heroPropertyIndex.isReady()) {
+            return heroPropertyIndex.find(heroQuery);
+        }
+        var ids = new TreeSet<Long>();
+        for (List<HeroQuery.Term> group : heroQuery.getGroups()) {
+            Set<Long> matches = null;
+            for (HeroQuery.Term term : group) {
+                var termIds = isStoredValue(term.getProperty(), term.getValue())
+                    ? heroRepository.findIdsByPropertyAfter(term.getProperty(), term.getValue(), 0L, Integer.MAX_VALUE)
+                    : List.<Long>of();
+                if (matches == null) {
+                    matches = new HashSet<>(termIds);
+                } else {
+                    matches.retainAll(new HashSet<>(termIds));
+                }
+                if (matches.isEmpty()) {
+                    break;
+                }
+            }
+            ids.addAll(matches);
+        }
+        return new ArrayList<>(ids);
+    }
+
+    // Loads the heroes by id in chunks, keeping the IN list of every query bounded
+    private List<Hero> findHeroesByIds(Collection<Long> ids) {
+        var heroes = new ArrayList<Hero>(ids.size());
+        var chunk = new ArrayList<Long>(ID_CHUNK_SIZE);
+
+        for (Long id : ids) {
+            chunk.add(id);
+            if (chunk.size() == ID_CHUNK_SIZE) {
+                heroes.addAll(heroRepository.findByIdInOrderById(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            heroes.addAll(heroRepository.findByIdInOrderById(chunk));
+        }
+        return heroes;
+    }
+
+    // The first ids greater than the cursor, from a list of ids in ascending order
+    private List<Long> seek(List<Long> ids, Long after, int limit) {
+        var position = Collections.binarySearch(ids, after);
+        var from = position >= 0 ? position + 1 : -position - 1;
+        return ids.subList(from, Math.min(ids.size(), from + limit));
+    }
+
+    // One id query per page plus a fixed number of statements to load only the heroes of that page
+    private HeroPageDto buildPage(List<Long> ids, int limit) {
+        var hasNext = ids.size() > limit;
+        var pageIds = hasNext ? ids.subList(0, limit) : ids;
+        var heroes = findHeroesByIds(pageIds);
+
+        return HeroPageDto.builder()
+            .heroes(heroes.stream()
+                .map(heroAdapter::adapterHeroToHeroDto)
+                .collect(Collectors.toList()))
+            .nextCursor(hasNext ? CursorUtil.encode(pageIds.get(pageIds.size() - 1)) : null)
+            .build();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class PatchedHero {
+
+        private final Hero before;
+        private final Hero after;
+
+    }
+
 }
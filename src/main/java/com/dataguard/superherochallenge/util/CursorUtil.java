@@ -0,0 +1,30 @@
+package com.dataguard.superherochallenge.util;
+
+import com.dataguard.superherochallenge.service.exception.BadRequestException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+public final class CursorUtil {
+
+    private CursorUtil() {
+    }
+
+    public static String encode(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Long decode(String cursor) {
+        if (Optional.ofNullable(cursor).isEmpty() || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            var id = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return Long.valueOf(id);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.dataguard.superherochallenge.util;
+
+import com.dataguard.superherochallenge.service.exception.PreconditionFailedException;
+import java.util.Arrays;
+import java.util.Optional;
+
+public final class ETagUtil {
+
+    public static final String STALE_HERO = "Hero was changed by another request";
+
+    private static final String ANY = "*";
+
+    private ETagUtil() {
+    }
+
+    // The id is part of the tag, so a hero deleted and created again under the same name never matches an old tag
+    public static String of(Long id, Long version) {
+        return id + "." + version;
+    }
+
+    // Aggregate version of a list: an add or a delete changes the count, an update the sum of the versions,
+    // and a hero swapped for another the sum of the ids or the last id, since versions only grow and ids are never
+    // reused. Sums can still collide, so it's a weak validator: fine for If-None-Match, never for If-Match.
+    public static String of(long heroes, long versions, long ids, long lastId) {
+        return "W/\"" + heroes + "-" + versions + "-" + ids + "-" + lastId + "\"";
+    }
+
+    // The version If-Match expects for the hero, null when any version will do. Tags are compared strongly:
+    // weak tags and tags of other heroes never match.
+    public static Long expectedVersion(Long id, String ifMatch) {
+        if (Optional.ofNullable(ifMatch).isEmpty() || ifMatch.isBlank() || ANY.equals(ifMatch.trim())) {
+            return null;
+        }
+        var prefix = "\"" + id + ".";
+        return Arrays.stream(ifMatch.split(","))
+            .map(String::trim)
+            .filter(tag -> tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1)
+            .map(tag -> tag.substring(prefix.length(), tag.length() - 1))
+            .filter(version -> version.chars().allMatch(Character::isDigit))
+            .map(Long::valueOf)
+            .findFirst()
+            .orElseThrow(() -> new PreconditionFailedException(STALE_HERO));
+    }
+
+}
@@ -0,0 +1,254 @@
+package com.dataguard.superherochallenge.reactive.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dataguard.superherochallenge.dto.BulkImportResultDto;
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.reactive.ReactiveHeroApplication;
+import com.dataguard.superherochallenge.reactive.repository.ReactiveHeroRepository;
+import java.time.Duration;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+// End to end, through WebFlux and R2DBC down to H2. Every test uses its own names and property values,
+// since the database is shared by the tests.
+@SpringBootTest(classes = ReactiveHeroApplication.class, webEnvironment = WebEnvironment.RANDOM_PORT,
+    properties = "spring.main.web-application-type=reactive")
+@ActiveProfiles("reactive")
+class ReactiveHeroControllerTest {
+
+    private static final String HERO_API = "/api/v1/heroes";
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    DatabaseClient databaseClient;
+
+    @Autowired
+    ReactiveHeroRepository heroRepository;
+
+    @Test
+    @DisplayName("Should create a new hero and find it by name")
+    void itShouldCreateAndFindByName() {
+        var heroDto = buildHero("Carol Danvers", "flight", "photon-blast", "avengers");
+
+        webTestClient.post().uri(HERO_API).bodyValue(heroDto).exchange()
+            .expectStatus().isCreated()
+            .expectHeader().value("Location", location -> assertThat(location).endsWith("/Carol%20Danvers"))
+            .expectBody()
+            .jsonPath("name").isEqualTo("Carol Danvers")
+            .jsonPath("powers[0]").isEqualTo("flight")
+            .jsonPath("weapons[0]").isEqualTo("photon-blast");
+
+        webTestClient.get().uri(HERO_API + "/names?name={name}", "Carol Danvers").exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("alias").isEqualTo("Alias of Carol Danvers")
+            .jsonPath("associations[0]").isEqualTo("avengers");
+    }
+
+    @Test
+    @DisplayName("Should answer with the same errors as the servlet stack")
+    void itShouldAnswerWithSameErrors() {
+        webTestClient.post().uri(HERO_API).bodyValue(buildHero("Tony Stark", "genius", "arc-reactor", "avengers"))
+            .exchange()
+            .expectStatus().isCreated();
+
+        webTestClient.post().uri(HERO_API).bodyValue(buildHero("Tony Stark", "genius", "arc-reactor", "avengers"))
+            .exchange()
+            .expectStatus().isEqualTo(409)
+            .expectBody().jsonPath("message").isEqualTo("Hero already exists");
+
+        webTestClient.post().uri(HERO_API).bodyValue(HeroDto.builder().build()).exchange()
+            .expectStatus().isBadRequest()
+            .expectBody().jsonPath("messages.length()").isEqualTo(3);
+
+        webTestClient.get().uri(HERO_API + "/names?name=Nobody").exchange()
+            .expectStatus().isNotFound()
+            .expectBody().jsonPath("message").isEqualTo("Hero by name not found");
+
+        webTestClient.get().uri(HERO_API + "/properties?property=planet&value=earth").exchange()
+            .expectStatus().isNotFound();
+
+        webTestClient.get().uri(HERO_API + "?limit=0").exchange()
+            .expectStatus().isBadRequest()
+            .expectBody().jsonPath("messages[0]").isEqualTo("Limit must be between 1 and 1000");
+    }
+
+    @Test
+    @DisplayName("Should stream every hero with a property across several chunks")
+    void itShouldStreamHeroesAcrossChunks() {
+        importHeroes("stream", 1_201, "stream-power");
+
+        var heroes = webTestClient.get().uri(HERO_API + "/properties?property=power&value=stream-power")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+            .returnResult(HeroDto.class)
+            .getResponseBody()
+            .map(HeroDto::getName)
+            .collectList()
+            .block();
+
+        assertThat(heroes).hasSize(1_201).doesNotHaveDuplicates();
+    }
+
+    @Test
+    @DisplayName("Should page heroes by property and by query with a cursor")
+    void itShouldPageHeroesWithCursor() {
+        importHeroes("page", 3, "page-power");
+
+        var cursor = webTestClient.get().uri(HERO_API + "/properties?property=power&value=page-power&limit=2")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("length()").isEqualTo(2)
+            .returnResult()
+            .getResponseHeaders()
+            .getFirst("X-Next-Cursor");
+        assertThat(cursor).isNotNull();
+
+        webTestClient.get().uri(HERO_API + "/properties?property=power&value=page-power&limit=2&after={cursor}", cursor)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist("X-Next-Cursor")
+            .expectBody()
+            .jsonPath("length()").isEqualTo(1)
+            .jsonPath("[0].name").isEqualTo("page-hero-2");
+
+        webTestClient.get().uri(HERO_API + "/properties/query?q={q}",
+                "power=page-power AND association=page-hero-1 OR association=page-hero-2")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("length()").isEqualTo(2)
+            .jsonPath("[0].name").isEqualTo("page-hero-1")
+            .jsonPath("[1].name").isEqualTo("page-hero-2");
+    }
+
+    @Test
+    @DisplayName("Should update and delete a hero")
+    void itShouldUpdateAndDeleteHero() {
+        importHeroes("update", 1, "update-power");
+        var id = databaseClient.sql("SELECT id FROM hero WHERE name = 'update-hero-0'")
+            .map(row -> row.get("id", Long.class))
+            .one()
+            .block();
+
+        webTestClient.put().uri(HERO_API + "/{id}", id)
+            .bodyValue(HeroDto.builder().alias("New alias").powers(new String[]{"flight", "healing"}).build())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("name").isEqualTo("update-hero-0")
+            .jsonPath("alias").isEqualTo("New alias")
+            .jsonPath("powers.length()").isEqualTo(2);
+
+        webTestClient.get().uri(HERO_API + "/names?name=update-hero-0").exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("alias").isEqualTo("New alias")
+            .jsonPath("powers[1]").isEqualTo("healing")
+            .jsonPath("associations[0]").isEqualTo("update-hero-0");
+
+        webTestClient.delete().uri(HERO_API + "/{id}", id).exchange()
+            .expectStatus().isNoContent();
+
+        webTestClient.get().uri(HERO_API + "/names?name=update-hero-0").exchange()
+            .expectStatus().isNotFound();
+        webTestClient.delete().uri(HERO_API + "/{id}", id).exchange()
+            .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Should bump the version of an updated hero and refuse to overwrite it with a stale one")
+    void itShouldRefuseToOverwriteStaleHero() {
+        importHeroes("stale", 1, "stale-power");
+        var hero = heroRepository.findByName("stale-hero-0").block();
+
+        var updated = heroRepository.update(copyOf(hero, "Binary")).block();
+        Throwable exception = Assertions.catchThrowable(() ->
+            heroRepository.update(copyOf(hero, "Warbird")).block());
+
+        assertThat(updated.getVersion()).isEqualTo(hero.getVersion() + 1);
+        assertThat(exception).isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(heroRepository.findById(hero.getId()).block().getAlias()).isEqualTo("Binary");
+    }
+
+    @Test
+    @DisplayName("Should import heroes in bulk, reporting the rejected lines")
+    void itShouldImportHeroesInBulk() {
+        var ndjson = "{\"name\":\"bulk-hero\",\"alias\":\"a\",\"origin\":\"o\"}\n"
+            + "{\"name\":\"bulk-hero\",\"alias\":\"a\",\"origin\":\"o\"}\n"
+            + "{\"name\":\"bulk-hero-2\"}\n"
+            + "not json\n";
+
+        var result = webTestClient.post().uri(HERO_API + "/_bulk")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .bodyValue(ndjson)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(BulkImportResultDto.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(3);
+        assertThat(result.getErrors()).extracting("line").containsExactly(2L, 3L, 4L);
+    }
+
+    private void importHeroes(String prefix, int count, String power) {
+        var ndjson = IntStream.range(0, count)
+            .mapToObj(i -> "{\"name\":\"" + prefix + "-hero-" + i + "\",\"alias\":\"a\",\"origin\":\"o\","
+                + "\"powers\":[\"" + power + "\"],\"associations\":[\"" + prefix + "-hero-" + i + "\"]}")
+            .collect(Collectors.joining("\n"));
+
+        // imported line by line, one transaction each: slower than the default timeout on a busy machine
+        webTestClient.mutate().responseTimeout(Duration.ofSeconds(30)).build()
+            .post().uri(HERO_API + "/_bulk")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .bodyValue(ndjson)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody().jsonPath("imported").isEqualTo(count);
+    }
+
+    private Hero copyOf(Hero hero, String alias) {
+        return Hero.builder()
+            .id(hero.getId())
+            .version(hero.getVersion())
+            .name(hero.getName())
+            .alias(alias)
+            .origin(hero.getOrigin())
+            .powers(hero.getPowers())
+            .weapons(hero.getWeapons())
+            .associations(hero.getAssociations())
+            .build();
+    }
+
+    private HeroDto buildHero(String name, String power, String weapon, String association) {
+        return HeroDto.builder()
+            .name(name)
+            .alias("Alias of " + name)
+            .origin("Origin of " + name)
+            .powers(new String[]{power})
+            .weapons(new String[]{weapon})
+            .associations(new String[]{association})
+            .build();
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.dataguard.superherochallenge.reactive.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dataguard.superherochallenge.repository.HeroValueDictionary;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+// reactive/schema.sql must keep matching what Hibernate creates from Hero, or the two stacks would
+// no longer be comparable (nor able to share a database)
+@DataJpaTest
+@Import(HeroValueDictionary.class)
+class ReactiveHeroSchemaTest {
+
+    private static final String COLUMNS = "SELECT TABLE_NAME, COLUMN_NAME, TYPE_NAME, CHARACTER_MAXIMUM_LENGTH, IS_NULLABLE"
+        + " FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = 'PUBLIC' ORDER BY TABLE_NAME, COLUMN_NAME";
+    private static final String INDEXES = "SELECT TABLE_NAME, COLUMN_NAME, ORDINAL_POSITION, PRIMARY_KEY, NON_UNIQUE"
+        + " FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_SCHEMA = 'PUBLIC'"
+        + " ORDER BY TABLE_NAME, PRIMARY_KEY, NON_UNIQUE, COLUMN_NAME, ORDINAL_POSITION";
+    private static final String FOREIGN_KEYS = "SELECT PKTABLE_NAME, PKCOLUMN_NAME, FKTABLE_NAME, FKCOLUMN_NAME"
+        + " FROM INFORMATION_SCHEMA.CROSS_REFERENCES ORDER BY FKTABLE_NAME";
+    private static final String SEQUENCES = "SELECT SEQUENCE_NAME, INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES"
+        + " WHERE SEQUENCE_SCHEMA = 'PUBLIC' ORDER BY SEQUENCE_NAME";
+
+    @Autowired
+    JdbcTemplate hibernateSchema;
+
+    @Test
+    @DisplayName("Should create the same schema as Hibernate")
+    void itShouldCreateSameSchemaAsHibernate() {
+        var database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .addScript("classpath:reactive/schema.sql")
+            .build();
+        try {
+            var reactiveSchema = new JdbcTemplate(database);
+
+            for (var query : List.of(COLUMNS, INDEXES, FOREIGN_KEYS, SEQUENCES)) {
+                List<Map<String, Object>> expected = hibernateSchema.queryForList(query);
+                assertThat(expected).isNotEmpty();
+                assertThat(reactiveSchema.queryForList(query)).as(query).isEqualTo(expected);
+            }
+        } finally {
+            database.shutdown();
+        }
+    }
+
+}
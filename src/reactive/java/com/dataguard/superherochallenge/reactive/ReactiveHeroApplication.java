@@ -0,0 +1,25 @@
+package com.dataguard.superherochallenge.reactive;
+
+import com.dataguard.superherochallenge.adapter.HeroAdapter;
+import com.dataguard.superherochallenge.controller.exception.ResourceExceptionHandler;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Import;
+
+// The same api/v1/heroes contract as SuperHeroChallengeApplication on WebFlux and R2DBC, started with the
+// "reactive" profile (port 9002). Only this package is scanned, and its beans are skipped by the servlet
+// application, which scans it as well.
+@SpringBootApplication
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@Import({HeroAdapter.class, ResourceExceptionHandler.class})
+public class ReactiveHeroApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveHeroApplication.class)
+            .profiles("reactive")
+            .run(args);
+    }
+
+}
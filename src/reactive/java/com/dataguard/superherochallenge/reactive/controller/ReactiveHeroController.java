@@ -0,0 +1,149 @@
+package com.dataguard.superherochallenge.reactive.controller;
+
+import com.dataguard.superherochallenge.dto.BulkImportResultDto;
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.dto.HeroPageDto;
+import com.dataguard.superherochallenge.reactive.service.ReactiveHeroImportService;
+import com.dataguard.superherochallenge.reactive.service.ReactiveHeroService;
+import java.util.Optional;
+import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Same paths, parameters, headers and bodies as HeroController. Heroes are written as they're read from the
+// database, and as NDJSON the next chunk is only read once the client has taken the previous one.
+@RestController
+@RequestMapping("api/v1/heroes")
+@AllArgsConstructor
+@Validated
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveHeroController {
+
+    private static final String MESSAGE = "is missing and is required";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final String LIMIT_MESSAGE = "Limit must be between 1 and 1000";
+
+    private final ReactiveHeroService heroService;
+    private final ReactiveHeroImportService heroImportService;
+
+    @GetMapping
+    public Mono<ResponseEntity<Flux<HeroDto>>> findAllHeroes(@RequestParam(value = "after", required = false) String after,
+                                                             @RequestParam(value = "limit", required = false)
+                                                             @Min(value = 1, message = LIMIT_MESSAGE)
+                                                             @Max(value = 1000, message = LIMIT_MESSAGE) Integer limit) {
+        if (isPageRequest(after, limit)) {
+            return heroService.findHeroesPage(after, pageSize(limit)).map(this::toPageResponse);
+        }
+        return Mono.just(ResponseEntity.ok(heroService.findAllHeroes()));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<HeroDto> streamAllHeroes() {
+        return heroService.findAllHeroes();
+    }
+
+    @GetMapping("/names")
+    public Mono<ResponseEntity<HeroDto>> findHeroByName(@RequestParam(value = "name")
+                                                        @NotBlank(message = "Name " + MESSAGE) String name) {
+        return heroService.findHeroByName(name).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(value = "/properties")
+    public Mono<ResponseEntity<Flux<HeroDto>>> findHeroesByProperty(@RequestParam(value = "property")
+                                                                    @NotBlank(message = "Property " + MESSAGE) String property,
+                                                                    @RequestParam(value = "value")
+                                                                    @NotBlank(message = "Value " + MESSAGE) String value,
+                                                                    @RequestParam(value = "after", required = false)
+                                                                    String after,
+                                                                    @RequestParam(value = "limit", required = false)
+                                                                    @Min(value = 1, message = LIMIT_MESSAGE)
+                                                                    @Max(value = 1000, message = LIMIT_MESSAGE) Integer limit) {
+        if (isPageRequest(after, limit)) {
+            return heroService.findHeroesByPropertyPage(property, value, after, pageSize(limit))
+                .map(this::toPageResponse);
+        }
+        return Mono.just(ResponseEntity.ok(heroService.findHeroesByProperty(property, value)));
+    }
+
+    @GetMapping(value = "/properties", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<HeroDto> streamHeroesByProperty(@RequestParam(value = "property")
+                                                @NotBlank(message = "Property " + MESSAGE) String property,
+                                                @RequestParam(value = "value")
+                                                @NotBlank(message = "Value " + MESSAGE) String value) {
+        return heroService.findHeroesByProperty(property, value);
+    }
+
+    @GetMapping(value = "/properties/query")
+    public Mono<ResponseEntity<Flux<HeroDto>>> findHeroesByQuery(@RequestParam(value = "q")
+                                                                 @NotBlank(message = "Query " + MESSAGE) String query,
+                                                                 @RequestParam(value = "after", required = false)
+                                                                 String after,
+                                                                 @RequestParam(value = "limit", required = false)
+                                                                 @Min(value = 1, message = LIMIT_MESSAGE)
+                                                                 @Max(value = 1000, message = LIMIT_MESSAGE) Integer limit) {
+        if (isPageRequest(after, limit)) {
+            return heroService.findHeroesByQueryPage(query, after, pageSize(limit)).map(this::toPageResponse);
+        }
+        return Mono.just(ResponseEntity.ok(heroService.findHeroesByQuery(query)));
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<HeroDto>> addNewHero(@Valid @RequestBody HeroDto heroDto, ServerHttpRequest request) {
+        return heroService.addNewHero(heroDto).map(heroAdded -> ResponseEntity
+            .created(UriComponentsBuilder.fromHttpRequest(request)
+                .path("/{name}").buildAndExpand(heroAdded.getName()).toUri())
+            .body(heroAdded));
+    }
+
+    @PostMapping(value = "/_bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<BulkImportResultDto>> importHeroes(@RequestBody Flux<String> ndjsonLines) {
+        return heroImportService.importHeroes(ndjsonLines).map(ResponseEntity::ok);
+    }
+
+    @PutMapping(value = "/{id}")
+    public Mono<ResponseEntity<HeroDto>> updateHero(@PathVariable(value = "id") Long id, @RequestBody HeroDto heroDto) {
+        return heroService.updateHero(id, heroDto).map(ResponseEntity::ok);
+    }
+
+    @DeleteMapping(value = "/{id}")
+    public Mono<ResponseEntity<HeroDto>> deleteHero(@PathVariable(value = "id") Long id) {
+        return heroService.deleteHero(id).then(Mono.just(ResponseEntity.noContent().build()));
+    }
+
+    private boolean isPageRequest(String after, Integer limit) {
+        return Optional.ofNullable(after).isPresent() || Optional.ofNullable(limit).isPresent();
+    }
+
+    private int pageSize(Integer limit) {
+        return Optional.ofNullable(limit).orElse(DEFAULT_PAGE_SIZE);
+    }
+
+    private ResponseEntity<Flux<HeroDto>> toPageResponse(HeroPageDto page) {
+        var response = ResponseEntity.ok();
+        Optional.ofNullable(page.getNextCursor())
+            .ifPresent(cursor -> response.header(NEXT_CURSOR_HEADER, cursor));
+        return response.body(Flux.fromIterable(page.getHeroes()));
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.dataguard.superherochallenge.reactive.controller.exception;
+
+import com.dataguard.superherochallenge.controller.exception.StandardError;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+// WebFlux reports an invalid @Valid body with its own exception; everything else is handled by
+// ResourceExceptionHandler, shared with the servlet stack
+@ControllerAdvice
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveResourceExceptionHandler {
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<StandardError> handleValidationExceptions(WebExchangeBindException ex) {
+        var messages = ex.getAllErrors().stream()
+            .map(DefaultMessageSourceResolvable::getDefaultMessage)
+            .toArray(String[]::new);
+
+        var err = StandardError.builder()
+            .status(HttpStatus.BAD_REQUEST.value())
+            .messages(messages)
+            .error(HttpStatus.BAD_REQUEST.name())
+            .build();
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(err);
+    }
+
+}
@@ -0,0 +1,275 @@
+package com.dataguard.superherochallenge.reactive.repository;
+
+import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.entity.HeroProperty;
+import com.dataguard.superherochallenge.index.HeroQuery;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Reads and writes the tables Hibernate maps Hero to. Heroes are always loaded by id with two statements,
+// one for the heroes and one for the values of their three collections, like the JPA repository does with
+// its subselects. Collection rows hold the ids of the values in the dictionary of their property, which
+// searches compare instead of the values.
+@Repository
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@AllArgsConstructor
+public class ReactiveHeroRepository {
+
+    private static final String HERO_COLUMNS = "SELECT id, alias, name, origin, version FROM hero";
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<Hero> findById(Long id) {
+        return findByIdIn(List.of(id)).next();
+    }
+
+    public Mono<Hero> findByName(String name) {
+        return databaseClient.sql("SELECT id FROM hero WHERE name = :name")
+            .bind("name", name)
+            .map(row -> row.get("id", Long.class))
+            .one()
+            .flatMap(this::findById);
+    }
+
+    // The heroes of the ids, ordered by id
+    public Flux<Hero> findByIdIn(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.sql(HERO_COLUMNS + " WHERE id IN (:ids) ORDER BY id")
+            .bind("ids", ids)
+            .map(row -> Map.entry(row.get("id", Long.class), Hero.builder()
+                .id(row.get("id", Long.class))
+                .alias(row.get("alias", String.class))
+                .name(row.get("name", String.class))
+                .origin(row.get("origin", String.class))
+                .version(row.get("version", Long.class))))
+            .all()
+            .collectMap(Map.Entry::getKey, Map.Entry::getValue, LinkedHashMap::new)
+            .flatMapMany(heroes -> findValues(ids).map(values -> {
+                heroes.forEach((id, builder) -> {
+                    var heroValues = values.getOrDefault(id, Map.of());
+                    builder.powers(toArray(heroValues.get(HeroProperty.POWER)))
+                        .weapons(toArray(heroValues.get(HeroProperty.WEAPON)))
+                        .associations(toArray(heroValues.get(HeroProperty.ASSOCIATION)));
+                });
+                return heroes.values();
+            }).flatMapIterable(builders -> builders))
+            .map(Hero.HeroBuilder::build);
+    }
+
+    public Flux<Long> findIdsAfter(Long after, int limit) {
+        return databaseClient.sql("SELECT id FROM hero WHERE id > :after ORDER BY id LIMIT :limit")
+            .bind("after", after)
+            .bind("limit", limit)
+            .map(row -> row.get("id", Long.class))
+            .all();
+    }
+
+    public Flux<Long> findIdsByPropertyAfter(HeroProperty property, String value, Long after, int limit) {
+        var sql = "SELECT DISTINCT hero_id FROM " + property.getCollectionTable()
+            + " WHERE " + property.getValueIdColumn() + " = " + valueId(property, ":value")
+            + " AND hero_id > :after ORDER BY hero_id LIMIT :limit";
+        return databaseClient.sql(sql)
+            .bind("value", value)
+            .bind("after", after)
+            .bind("limit", limit)
+            .map(row -> row.get("hero_id", Long.class))
+            .all();
+    }
+
+    // Every conjunction of the query is an INTERSECT of the ids of its terms, and the conjunctions are UNIONed.
+    // Each term seeks past the cursor on its (value, hero_id) index.
+    public Flux<Long> findIdsByQueryAfter(HeroQuery query, Long after, int limit) {
+        var values = new ArrayList<String>();
+        var groups = query.getGroups().stream()
+            .map(group -> group.stream()
+                .map(term -> {
+                    values.add(term.getValue());
+                    var property = term.getProperty();
+                    return "SELECT hero_id FROM " + property.getCollectionTable() + " WHERE "
+                        + property.getValueIdColumn() + " = " + valueId(property, ":v" + (values.size() - 1))
+                        + " AND hero_id > :after";
+                })
+                .collect(Collectors.joining(" INTERSECT ", "(", ")")))
+            .collect(Collectors.joining(" UNION "));
+
+        var spec = databaseClient.sql("SELECT hero_id FROM (" + groups + ") ids ORDER BY hero_id LIMIT :limit")
+            .bind("after", after)
+            .bind("limit", limit);
+        for (int i = 0; i < values.size(); i++) {
+            spec = spec.bind("v" + i, values.get(i));
+        }
+        return spec.map(row -> row.get("hero_id", Long.class)).all();
+    }
+
+    // Ids are taken from the same pooled sequence as Hibernate: the value read reserves a whole block of ids
+    // for the caller, so this stack uses only that value and never collides with the JPA one
+    public Mono<Hero> insert(Hero hero) {
+        return databaseClient.sql("SELECT NEXT VALUE FOR hero_sequence")
+            .map(row -> row.get(0, Long.class))
+            .one()
+            .flatMap(id -> databaseClient.sql("INSERT INTO hero (id, alias, name, origin, version)"
+                    + " VALUES (:id, :alias, :name, :origin, 0)")
+                .bind("id", id)
+                .bind("alias", hero.getAlias())
+                .bind("name", hero.getName())
+                .bind("origin", hero.getOrigin())
+                .then()
+                .then(insertValues(id, hero))
+                .thenReturn(withVersion(id, 0L, hero)));
+    }
+
+    // Collections are replaced as a whole, like Hibernate does when a list is replaced. The version read is checked
+    // and bumped the same way, so both stacks' optimistic locks and ETags see changes made by the other.
+    public Mono<Hero> update(Hero hero) {
+        return databaseClient.sql("UPDATE hero SET alias = :alias, name = :name, origin = :origin,"
+                + " version = version + 1 WHERE id = :id AND version = :version")
+            .bind("id", hero.getId())
+            .bind("version", hero.getVersion())
+            .bind("alias", hero.getAlias())
+            .bind("name", hero.getName())
+            .bind("origin", hero.getOrigin())
+            .fetch()
+            .rowsUpdated()
+            .flatMap(rows -> rows == 0
+                ? Mono.error(new OptimisticLockingFailureException("Hero " + hero.getId()
+                    + " was changed or deleted since version " + hero.getVersion()))
+                : deleteValues(hero.getId())
+                    .then(insertValues(hero.getId(), hero))
+                    .thenReturn(withVersion(hero.getId(), hero.getVersion() + 1, hero)));
+    }
+
+    public Mono<Void> deleteById(Long id) {
+        return deleteValues(id)
+            .then(databaseClient.sql("DELETE FROM hero WHERE id = :id").bind("id", id).then());
+    }
+
+    private Mono<Map<Long, Map<HeroProperty, List<String>>>> findValues(Collection<Long> ids) {
+        var sql = List.of(HeroProperty.values()).stream()
+            .map(property -> "SELECT hero_id, '" + property.name() + "' AS property, d." + property.getName()
+                + " AS property_value, position FROM " + property.getCollectionTable()
+                + " LEFT JOIN " + property.getDictionaryTable() + " d ON d.id = " + property.getValueIdColumn()
+                + " WHERE hero_id IN (:ids)")
+            .collect(Collectors.joining(" UNION ALL ", "", " ORDER BY hero_id, property, position"));
+
+        return databaseClient.sql(sql)
+            .bind("ids", ids)
+            .map(row -> new HeroValue(row.get("hero_id", Long.class),
+                HeroProperty.valueOf(row.get("property", String.class)), row.get("property_value", String.class)))
+            .all()
+            .collect(HashMap::new, (values, value) -> values
+                .computeIfAbsent(value.getHeroId(), id -> new EnumMap<>(HeroProperty.class))
+                .computeIfAbsent(value.getProperty(), property -> new ArrayList<>())
+                .add(value.getValue()));
+    }
+
+    // One multi-row insert per collection, after the values it doesn't find in the dictionary are added
+    private Mono<Void> insertValues(Long id, Hero hero) {
+        return insertValues(id, HeroProperty.POWER, hero.getPowers())
+            .then(insertValues(id, HeroProperty.WEAPON, hero.getWeapons()))
+            .then(insertValues(id, HeroProperty.ASSOCIATION, hero.getAssociations()));
+    }
+
+    private Mono<Void> insertValues(Long id, HeroProperty property, String[] values) {
+        if (values == null || values.length == 0) {
+            return Mono.empty();
+        }
+        var rows = new ArrayList<String>(values.length);
+        for (int i = 0; i < values.length; i++) {
+            rows.add("(:id, " + i + ", " + valueId(property, ":v" + i) + ")");
+        }
+
+        GenericExecuteSpec spec = databaseClient.sql("INSERT INTO " + property.getCollectionTable()
+                + " (hero_id, position, " + property.getValueIdColumn() + ") VALUES " + String.join(", ", rows))
+            .bind("id", id);
+        for (int i = 0; i < values.length; i++) {
+            spec = values[i] == null ? spec.bindNull("v" + i, String.class) : spec.bind("v" + i, values[i]);
+        }
+        return addValues(property, values).then(spec.then());
+    }
+
+    // Dictionary rows are only ever added: a value added concurrently by another request is just there already
+    private Mono<Void> addValues(HeroProperty property, String[] values) {
+        var distinctValues = Arrays.stream(values).filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (distinctValues.isEmpty()) {
+            return Mono.empty();
+        }
+        return databaseClient.sql("SELECT " + property.getName() + " FROM " + property.getDictionaryTable() + " WHERE "
+                + property.getName() + " IN (:values)")
+            .bind("values", distinctValues)
+            .map(row -> row.get(0, String.class))
+            .all()
+            .collect(Collectors.toSet())
+            .flatMapMany(stored -> Flux.fromIterable(distinctValues).filter(value -> !stored.contains(value)))
+            .concatMap(value -> databaseClient.sql("INSERT INTO " + property.getDictionaryTable()
+                    + " (id, " + property.getName() + ") VALUES (NEXT VALUE FOR " + property.getDictionaryTable()
+                    + "_sequence, :value)")
+                .bind("value", value)
+                .then()
+                .onErrorResume(DataIntegrityViolationException.class, e -> Mono.empty()))
+            .then();
+    }
+
+    private Mono<Void> deleteValues(Long id) {
+        return Flux.fromArray(HeroProperty.values())
+            .concatMap(property -> databaseClient.sql("DELETE FROM " + property.getCollectionTable()
+                    + " WHERE hero_id = :id")
+                .bind("id", id)
+                .then())
+            .then();
+    }
+
+    private static Hero withVersion(Long id, long version, Hero hero) {
+        return Hero.builder()
+            .id(id)
+            .alias(hero.getAlias())
+            .name(hero.getName())
+            .origin(hero.getOrigin())
+            .version(version)
+            .powers(hero.getPowers())
+            .weapons(hero.getWeapons())
+            .associations(hero.getAssociations())
+            .build();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class HeroValue {
+
+        private final Long heroId;
+        private final HeroProperty property;
+        private final String value;
+
+    }
+
+    private static String[] toArray(List<String> values) {
+        return values == null ? new String[0] : values.toArray(new String[0]);
+    }
+
+    // The id of the value in the dictionary, null for a value no hero ever had
+    private static String valueId(HeroProperty property, String parameter) {
+        return "(SELECT id FROM " + property.getDictionaryTable() + " WHERE " + property.getName() + " = "
+            + parameter + ")";
+    }
+
+}
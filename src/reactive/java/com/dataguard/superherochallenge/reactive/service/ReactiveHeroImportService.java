@@ -0,0 +1,11 @@
+package com.dataguard.superherochallenge.reactive.service;
+
+import com.dataguard.superherochallenge.dto.BulkImportResultDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveHeroImportService {
+
+    Mono<BulkImportResultDto> importHeroes(final Flux<String> ndjsonLines);
+
+}
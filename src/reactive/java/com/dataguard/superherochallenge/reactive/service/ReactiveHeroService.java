@@ -0,0 +1,35 @@
+package com.dataguard.superherochallenge.reactive.service;
+
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.dto.HeroPageDto;
+import com.dataguard.superherochallenge.entity.Hero;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// HeroService without blocking: the Flux results are read from the database chunk by chunk, as they're consumed
+public interface ReactiveHeroService {
+
+    Mono<HeroDto> addNewHero(final HeroDto heroDto);
+
+    Flux<HeroDto> findAllHeroes();
+
+    Mono<HeroPageDto> findHeroesPage(final String after, final int limit);
+
+    Flux<HeroDto> findHeroesByProperty(final String property, final String value);
+
+    Mono<HeroPageDto> findHeroesByPropertyPage(final String property, final String value, final String after,
+                                               final int limit);
+
+    Flux<HeroDto> findHeroesByQuery(final String query);
+
+    Mono<HeroPageDto> findHeroesByQueryPage(final String query, final String after, final int limit);
+
+    Mono<HeroDto> findHeroByName(final String name);
+
+    Mono<Hero> findHeroById(final Long id);
+
+    Mono<HeroDto> updateHero(final Long heroId, final HeroDto heroDto);
+
+    Mono<Void> deleteHero(final Long heroId);
+
+}
@@ -0,0 +1,120 @@
+package com.dataguard.superherochallenge.reactive.service.impl;
+
+import com.dataguard.superherochallenge.adapter.HeroAdapter;
+import com.dataguard.superherochallenge.dto.BulkImportErrorDto;
+import com.dataguard.superherochallenge.dto.BulkImportResultDto;
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.reactive.repository.ReactiveHeroRepository;
+import com.dataguard.superherochallenge.reactive.service.ReactiveHeroImportService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveHeroImportServiceImpl implements ReactiveHeroImportService {
+
+    private static final String CONFLICT_MESSAGE = "Hero already exists";
+
+    private final ReactiveHeroRepository heroRepository;
+    private final HeroAdapter heroAdapter;
+    private final ObjectReader heroReader;
+    private final Validator validator;
+    private final TransactionalOperator transactionalOperator;
+    private final int maxReportedErrors;
+
+    public ReactiveHeroImportServiceImpl(ReactiveHeroRepository heroRepository,
+                                         HeroAdapter heroAdapter,
+                                         ObjectMapper objectMapper,
+                                         Validator validator,
+                                         TransactionalOperator transactionalOperator,
+                                         @Value("${hero.bulk.max-reported-errors:1000}") int maxReportedErrors) {
+        this.heroRepository = heroRepository;
+        this.heroAdapter = heroAdapter;
+        this.heroReader = objectMapper.readerFor(HeroDto.class);
+        this.validator = validator;
+        this.transactionalOperator = transactionalOperator;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    // Heroes are saved one at a time, each in its own transaction: the next line is only read from the
+    // request once the previous hero is saved
+    @Override
+    public Mono<BulkImportResultDto> importHeroes(Flux<String> ndjsonLines) {
+        return Mono.defer(() -> {
+            log.info("[importHeroes] start importing heroes");
+            var result = new ImportResult();
+
+            return ndjsonLines.index()
+                .filter(line -> !line.getT2().isBlank())
+                .concatMap(line -> importLine(line.getT1() + 1, line.getT2(), result))
+                .then(Mono.fromSupplier(() -> {
+                    log.info("[importHeroes] {} heroes imported and {} rejected", result.imported, result.failed);
+                    return BulkImportResultDto.builder()
+                        .imported(result.imported)
+                        .failed(result.failed)
+                        .errors(result.errors)
+                        .build();
+                }));
+        });
+    }
+
+    private Mono<Void> importLine(long lineNumber, String line, ImportResult result) {
+        HeroDto heroDto;
+        try {
+            heroDto = heroReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            result.reject(lineNumber, null, "Invalid hero: " + e.getOriginalMessage());
+            return Mono.empty();
+        }
+
+        var violations = validator.validate(heroDto);
+        if (!violations.isEmpty()) {
+            result.reject(lineNumber, heroDto.getName(), violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", ")));
+            return Mono.empty();
+        }
+
+        return heroRepository.insert(heroAdapter.adapterHeroDtoToHero(heroDto))
+            .as(transactionalOperator::transactional)
+            .doOnNext(hero -> result.imported++)
+            .onErrorResume(DataIntegrityViolationException.class, e -> {
+                result.reject(lineNumber, heroDto.getName(), CONFLICT_MESSAGE);
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    private class ImportResult {
+
+        private final List<BulkImportErrorDto> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+
+        private void reject(long line, String name, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new BulkImportErrorDto(line, name, message));
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,195 @@
+package com.dataguard.superherochallenge.reactive.service.impl;
+
+import com.dataguard.superherochallenge.adapter.HeroAdapter;
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.dto.HeroPageDto;
+import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.entity.HeroProperty;
+import com.dataguard.superherochallenge.index.HeroQuery;
+import com.dataguard.superherochallenge.reactive.repository.ReactiveHeroRepository;
+import com.dataguard.superherochallenge.reactive.service.ReactiveHeroService;
+import com.dataguard.superherochallenge.service.exception.BadRequestException;
+import com.dataguard.superherochallenge.service.exception.ConflictException;
+import com.dataguard.superherochallenge.service.exception.ObjectNotFoundException;
+import com.dataguard.superherochallenge.util.CursorUtil;
+import com.dataguard.superherochallenge.util.ETagUtil;
+import java.util.Optional;
+import java.util.function.Function;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@AllArgsConstructor
+public class ReactiveHeroServiceImpl implements ReactiveHeroService {
+
+    private static final int STREAM_CHUNK_SIZE = 500;
+    private static final String PROPERTY_MESSAGE = "The property informed doesn't exist: try power, weapon or association";
+
+    private final ReactiveHeroRepository heroRepository;
+    private final HeroAdapter heroAdapter;
+
+    @Override
+    @Transactional
+    public Mono<HeroDto> addNewHero(HeroDto heroDto) {
+        if (Optional.ofNullable(heroDto).isEmpty()) {
+            return Mono.error(new BadRequestException("Missing the hero object"));
+        }
+        log.info("[addNewHero] start adding new hero");
+        return save(heroRepository.insert(heroAdapter.adapterHeroDtoToHero(heroDto)))
+            .doOnNext(hero -> log.info("[addNewHero] hero {} added with success: ID {}", hero.getName(), hero.getId()))
+            .map(heroAdapter::adapterHeroToHeroDto);
+    }
+
+    @Override
+    public Flux<HeroDto> findAllHeroes() {
+        return stream(after -> heroRepository.findIdsAfter(after, STREAM_CHUNK_SIZE));
+    }
+
+    @Override
+    public Mono<HeroPageDto> findHeroesPage(String after, int limit) {
+        return Mono.defer(() -> buildPage(heroRepository.findIdsAfter(CursorUtil.decode(after), limit + 1), limit));
+    }
+
+    @Override
+    public Flux<HeroDto> findHeroesByProperty(String property, String value) {
+        return Flux.defer(() -> {
+            log.info("[findHeroesByProperty] Finding heroes with property '{}' and value '{}'", property, value);
+            var heroProperty = toHeroProperty(property);
+            return stream(after -> heroRepository.findIdsByPropertyAfter(heroProperty, value, after, STREAM_CHUNK_SIZE));
+        });
+    }
+
+    @Override
+    public Mono<HeroPageDto> findHeroesByPropertyPage(String property, String value, String after, int limit) {
+        return Mono.defer(() -> {
+            log.info("[findHeroesByPropertyPage] Finding heroes with property '{}' and value '{}' after '{}'",
+                property, value, after);
+            var heroProperty = toHeroProperty(property);
+            return buildPage(heroRepository.findIdsByPropertyAfter(heroProperty, value, CursorUtil.decode(after),
+                limit + 1), limit);
+        });
+    }
+
+    @Override
+    public Flux<HeroDto> findHeroesByQuery(String query) {
+        return Flux.defer(() -> {
+            log.info("[findHeroesByQuery] Finding heroes matching '{}'", query);
+            var heroQuery = HeroQuery.parse(query);
+            return stream(after -> heroRepository.findIdsByQueryAfter(heroQuery, after, STREAM_CHUNK_SIZE));
+        });
+    }
+
+    @Override
+    public Mono<HeroPageDto> findHeroesByQueryPage(String query, String after, int limit) {
+        return Mono.defer(() -> {
+            log.info("[findHeroesByQueryPage] Finding heroes matching '{}' after '{}'", query, after);
+            var heroQuery = HeroQuery.parse(query);
+            return buildPage(heroRepository.findIdsByQueryAfter(heroQuery, CursorUtil.decode(after), limit + 1), limit);
+        });
+    }
+
+    @Override
+    public Mono<HeroDto> findHeroByName(String name) {
+        if (Optional.ofNullable(name).isEmpty()) {
+            return Mono.error(new BadRequestException("Missing field name"));
+        }
+        log.info("[findHeroByName] Finding hero called '{}'", name);
+        return heroRepository.findByName(name)
+            .map(heroAdapter::adapterHeroToHeroDto)
+            .switchIfEmpty(Mono.error(() -> new ObjectNotFoundException("Hero by name not found", false)));
+    }
+
+    @Override
+    public Mono<Hero> findHeroById(Long id) {
+        if (Optional.ofNullable(id).isEmpty()) {
+            return Mono.error(new BadRequestException("Missing field id to find the hero"));
+        }
+        return heroRepository.findById(id)
+            .switchIfEmpty(Mono.error(() -> new ObjectNotFoundException("Hero doesn't find")));
+    }
+
+    @Override
+    @Transactional
+    public Mono<HeroDto> updateHero(Long heroId, HeroDto heroDto) {
+        if (Optional.ofNullable(heroId).isEmpty()) {
+            return Mono.error(new BadRequestException("Missing param id to get the user"));
+        }
+        log.info("[updateHero] start updating hero");
+        return findHeroById(heroId)
+            .map(heroFound -> heroAdapter.adapterHeroToBeUpdated(heroFound, heroDto))
+            .flatMap(hero -> save(heroRepository.update(hero)))
+            .doOnNext(hero -> log.info("[updateHero] hero updated with success"))
+            .map(heroAdapter::adapterHeroToHeroDto);
+    }
+
+    @Override
+    @Transactional
+    public Mono<Void> deleteHero(Long heroId) {
+        if (Optional.ofNullable(heroId).isEmpty()) {
+            return Mono.error(new BadRequestException("Missing param id to get the user"));
+        }
+        log.info("[deleteHero] start deleting hero");
+        return findHeroById(heroId)
+            .flatMap(hero -> heroRepository.deleteById(hero.getId()))
+            .doOnSuccess(deleted -> log.info("[deleteHero] hero deleted with success"));
+    }
+
+    private Mono<Hero> save(Mono<Hero> saved) {
+        return saved.onErrorMap(DataIntegrityViolationException.class, e -> {
+            log.info("[save] hero violates a constraint: {}", e.getMostSpecificCause().getMessage());
+            return new ConflictException("Hero already exists");
+        }).onErrorMap(OptimisticLockingFailureException.class, e -> {
+            log.info("[save] {}", e.getMessage());
+            return new ConflictException(ETagUtil.STALE_HERO);
+        });
+    }
+
+    private HeroProperty toHeroProperty(String property) {
+        return Optional.ofNullable(HeroProperty.adapterStringToEnum(property))
+            .orElseThrow(() -> new ObjectNotFoundException(PROPERTY_MESSAGE));
+    }
+
+    // Chunks of ids are read one after the other, the next one only once the heroes of the previous one
+    // are consumed, so a slow client holds at most a chunk in memory and no connection while it reads
+    private Flux<HeroDto> stream(Function<Long, Flux<Long>> idsAfter) {
+        return streamAfter(0L, idsAfter);
+    }
+
+    private Flux<HeroDto> streamAfter(Long after, Function<Long, Flux<Long>> idsAfter) {
+        return idsAfter.apply(after).collectList().flatMapMany(ids -> {
+            var heroes = heroRepository.findByIdIn(ids).map(heroAdapter::adapterHeroToHeroDto);
+            if (ids.size() < STREAM_CHUNK_SIZE) {
+                return heroes;
+            }
+            var last = ids.get(ids.size() - 1);
+            return heroes.concatWith(Flux.defer(() -> streamAfter(last, idsAfter)));
+        });
+    }
+
+    // One id query per page plus two statements to load only the heroes of that page
+    private Mono<HeroPageDto> buildPage(Flux<Long> ids, int limit) {
+        return ids.collectList().flatMap(found -> {
+            var hasNext = found.size() > limit;
+            var pageIds = hasNext ? found.subList(0, limit) : found;
+
+            return heroRepository.findByIdIn(pageIds)
+                .map(heroAdapter::adapterHeroToHeroDto)
+                .collectList()
+                .map(heroes -> HeroPageDto.builder()
+                    .heroes(heroes)
+                    .nextCursor(hasNext ? CursorUtil.encode(pageIds.get(pageIds.size() - 1)) : null)
+                    .build());
+        });
+    }
+
+}
@@ -0,0 +1,67 @@
+-- Same tables, constraints and indexes Hibernate creates from Hero, so both stacks can share a database
+CREATE SEQUENCE IF NOT EXISTS hero_sequence START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS hero (
+    id BIGINT NOT NULL,
+    alias VARCHAR(255) NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    origin VARCHAR(255) NOT NULL,
+    version BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_hero_name UNIQUE (name)
+);
+
+-- Every power, weapon and association is stored once in its dictionary; the collections hold its id
+CREATE SEQUENCE IF NOT EXISTS hero_power_values_sequence START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE IF NOT EXISTS hero_power_values (
+    id INTEGER NOT NULL,
+    power VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_hero_power_values UNIQUE (power)
+);
+
+CREATE SEQUENCE IF NOT EXISTS hero_weapon_values_sequence START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE IF NOT EXISTS hero_weapon_values (
+    id INTEGER NOT NULL,
+    weapon VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_hero_weapon_values UNIQUE (weapon)
+);
+
+CREATE SEQUENCE IF NOT EXISTS hero_association_values_sequence START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE IF NOT EXISTS hero_association_values (
+    id INTEGER NOT NULL,
+    association VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_hero_association_values UNIQUE (association)
+);
+
+CREATE TABLE IF NOT EXISTS hero_powers (
+    hero_id BIGINT NOT NULL,
+    power_id INTEGER,
+    position INTEGER NOT NULL,
+    PRIMARY KEY (hero_id, position),
+    FOREIGN KEY (hero_id) REFERENCES hero (id)
+);
+CREATE INDEX IF NOT EXISTS idx_hero_powers_value ON hero_powers (power_id, hero_id);
+
+CREATE TABLE IF NOT EXISTS hero_weapons (
+    hero_id BIGINT NOT NULL,
+    weapon_id INTEGER,
+    position INTEGER NOT NULL,
+    PRIMARY KEY (hero_id, position),
+    FOREIGN KEY (hero_id) REFERENCES hero (id)
+);
+CREATE INDEX IF NOT EXISTS idx_hero_weapons_value ON hero_weapons (weapon_id, hero_id);
+
+CREATE TABLE IF NOT EXISTS hero_associations (
+    hero_id BIGINT NOT NULL,
+    association_id INTEGER,
+    position INTEGER NOT NULL,
+    PRIMARY KEY (hero_id, position),
+    FOREIGN KEY (hero_id) REFERENCES hero (id)
+);
+CREATE INDEX IF NOT EXISTS idx_hero_associations_value ON hero_associations (association_id, hero_id);
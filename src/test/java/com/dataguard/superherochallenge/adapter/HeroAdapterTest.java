@@ -3,6 +3,8 @@ package com.dataguard.superherochallenge.adapter;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
 import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.dto.HeroPatchDto;
+import com.dataguard.superherochallenge.dto.HeroValuesPatchDto;
 import com.dataguard.superherochallenge.entity.Hero;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -87,6 +89,33 @@ class HeroAdapterTest {
         assertThat(hero.getWeapons()).hasSize(4);
     }
 
+    @Test
+    void adapterPatchToHero() {
+        // given
+        var hero = buildHero(10L);
+
+        var patch = HeroPatchDto.builder()
+            .alias("Binary")
+            .powers(HeroValuesPatchDto.builder()
+                .add(new String[]{"flight", "cosmic-awareness"})
+                .remove(new String[]{"healing", "photon-blast"})
+                .build())
+            .weapons(HeroValuesPatchDto.builder().add(new String[]{"photon-gauntlets"}).build())
+            .build();
+
+        // when
+        heroAdapter.adapterPatchToHero(hero, patch);
+
+        // then
+        assertThat(hero.getId()).isEqualTo(10L);
+        assertThat(hero.getName()).isEqualTo("Carol Danvers");
+        assertThat(hero.getAlias()).isEqualTo("Binary");
+        assertThat(hero.getOrigin()).isEqualTo("Exposed to Space Stone reactor overload");
+        assertThat(hero.getPowers()).containsExactly("flight", "super-strength", "cosmic-awareness");
+        assertThat(hero.getWeapons()).containsExactly("photon-gauntlets");
+        assertThat(hero.getAssociations()).hasSize(5);
+    }
+
     private HeroDto buildHeroDto() {
         return HeroDto.builder()
             .name("Carol Danvers")
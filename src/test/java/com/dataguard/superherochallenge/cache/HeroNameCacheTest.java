@@ -0,0 +1,68 @@
+package com.dataguard.superherochallenge.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dataguard.superherochallenge.dto.HeroDto;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class HeroNameCacheTest {
+
+    @Test
+    @DisplayName("Should keep at most the configured number of names")
+    void itShouldBeBounded() {
+        var cache = new HeroNameCache(2, Duration.ofMinutes(5));
+        var loads = new AtomicInteger();
+
+        for (var name : new String[]{"a", "b", "c", "a"}) {
+            cache.get(name, n -> {
+                loads.incrementAndGet();
+                return Optional.empty();
+            });
+        }
+
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    @DisplayName("Should not store a lookup that raced with an invalidation")
+    void itShouldNotStoreLookupRacingWithInvalidation() {
+        var cache = new HeroNameCache(100, Duration.ofMinutes(5));
+        var hero = HeroDto.builder().name("Carol Danvers").build();
+
+        cache.get("Carol Danvers", name -> {
+            cache.invalidate(name);
+            return Optional.empty();
+        });
+        var found = cache.get("Carol Danvers", name -> Optional.of(hero));
+
+        assertThat(found).contains(hero);
+    }
+
+    @Test
+    @DisplayName("Should drop the hits of heroes deleted by id and keep the others")
+    void itShouldInvalidateIds() {
+        var cache = new HeroNameCache(100, Duration.ofMinutes(5));
+        var carol = HeroDto.builder().id(1L).name("Carol Danvers").build();
+        var steve = HeroDto.builder().id(2L).name("Steve Rogers").build();
+        cache.get(carol.getName(), name -> Optional.of(carol));
+        cache.get(steve.getName(), name -> Optional.of(steve));
+        cache.get("Nobody", name -> Optional.empty());
+        var loads = new AtomicInteger();
+
+        cache.invalidateIds(List.of(1L));
+
+        for (var name : new String[]{"Carol Danvers", "Steve Rogers", "Nobody"}) {
+            cache.get(name, n -> {
+                loads.incrementAndGet();
+                return Optional.empty();
+            });
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+}
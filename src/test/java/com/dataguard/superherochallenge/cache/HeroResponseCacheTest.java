@@ -0,0 +1,82 @@
+package com.dataguard.superherochallenge.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+class HeroResponseCacheTest {
+
+    private static final byte[] JSON = "[{\"name\":\"Carol Danvers\"},{\"name\":\"Carol Danvers\"},{\"name\":\"Carol Danvers\"}]"
+        .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    @DisplayName("Should not store a body that raced with a write")
+    void itShouldNotStoreBodyRacingWithWrite() {
+        var cache = new HeroResponseCache(true, DataSize.ofMegabytes(1), 1000);
+
+        var startedAt = cache.generation();
+        cache.invalidate();
+        cache.put("*", startedAt, "1-0-1", JSON);
+        assertThat(cache.getIfPresent("*")).isEmpty();
+
+        cache.put("*", cache.generation(), "1-0-1", JSON);
+        assertThat(cache.getIfPresent("*")).hasValueSatisfying(cached -> {
+            assertThat(cached.getJson()).isEqualTo(JSON);
+            assertThat(cached.getETag()).isEqualTo("1-0-1");
+        });
+    }
+
+    @Test
+    @DisplayName("Should keep the gzip body only when it is smaller")
+    void itShouldKeepGzipOnlyWhenSmaller() {
+        var cache = new HeroResponseCache(true, DataSize.ofMegabytes(1), 1000);
+
+        assertThat(cache.put("small", cache.generation(), "0-0-0", "[]".getBytes(StandardCharsets.UTF_8)).getGzip())
+            .isNull();
+        assertThat(cache.put("large", cache.generation(), "3-0-6", JSON).getGzip()).hasSizeLessThan(JSON.length);
+    }
+
+    @Test
+    @DisplayName("Should weigh the entry overhead and the key along with the bodies")
+    void itShouldWeighOverheadAndKey() {
+        var cache = new HeroResponseCache(true, DataSize.ofMegabytes(1), 1000);
+
+        var response = cache.put("power=flight", cache.generation(), "3-0-6", JSON);
+
+        assertThat(HeroResponseCache.weight("power=flight", response)).isEqualTo(HeroResponseCache.ENTRY_OVERHEAD
+            + "power=flight".length() + JSON.length + response.getGzip().length);
+    }
+
+    @Test
+    @DisplayName("Should hold no more than the maximum number of entries")
+    void itShouldBoundTheNumberOfEntries() {
+        var cache = new HeroResponseCache(true, DataSize.ofMegabytes(1), 10);
+
+        for (int i = 0; i < 100; i++) {
+            cache.put("power=" + i, cache.generation(), "1-0-1", JSON);
+        }
+
+        var held = 0;
+        for (int i = 0; i < 100; i++) {
+            held += cache.getIfPresent("power=" + i).isPresent() ? 1 : 0;
+        }
+        assertThat(held).isBetween(1, 10);
+    }
+
+    @Test
+    @DisplayName("Should not store anything when disabled")
+    void itShouldNotStoreWhenDisabled() {
+        var cache = new HeroResponseCache(false, DataSize.ofMegabytes(1), 1000);
+
+        var response = cache.put("*", cache.generation(), "3-0-6", JSON);
+
+        assertThat(response.getJson()).isEqualTo(JSON);
+        assertThat(response.getGzip()).isNull();
+        assertThat(response.getETag()).isEqualTo("3-0-6");
+        assertThat(cache.getIfPresent("*")).isEmpty();
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.dataguard.superherochallenge.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+class VirtualThreadConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+        .withUserConfiguration(VirtualThreadConfig.class);
+
+    @Test
+    @DisplayName("Should keep platform threads by default")
+    void itShouldKeepPlatformThreadsByDefault() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(ExecutorService.class));
+    }
+
+    @Test
+    @DisplayName("Should run tasks on virtual threads when enabled")
+    void itShouldRunTasksOnVirtualThreads() {
+        contextRunner.withPropertyValues("hero.virtual-threads.enabled=true").run(context -> {
+            var executor = context.getBean(AsyncTaskExecutor.class);
+            var thread = CompletableFuture.supplyAsync(Thread::currentThread, executor).get();
+
+            assertThat(thread.isVirtual()).isTrue();
+        });
+    }
+
+}
@@ -1,32 +1,61 @@
 package com.dataguard.superherochallenge.controller;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.matchesPattern;
 import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.dataguard.superherochallenge.cache.HeroResponseCache;
 import com.dataguard.superherochallenge.controller.exception.StandardError;
+import com.dataguard.superherochallenge.dto.BulkDeleteResultDto;
+import com.dataguard.superherochallenge.dto.BulkImportErrorDto;
+import com.dataguard.superherochallenge.dto.BulkImportResultDto;
 import com.dataguard.superherochallenge.dto.HeroDto;
-import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.dto.HeroMultiGetDto;
+import com.dataguard.superherochallenge.dto.HeroMultiGetItemDto;
+import com.dataguard.superherochallenge.dto.HeroPageDto;
+import com.dataguard.superherochallenge.dto.HeroPatchDto;
+import com.dataguard.superherochallenge.metrics.ServerTimingFilter;
+import com.dataguard.superherochallenge.service.HeroImportService;
+import com.dataguard.superherochallenge.service.HeroMultiGetService;
 import com.dataguard.superherochallenge.service.HeroService;
 import com.dataguard.superherochallenge.service.exception.BadRequestException;
 import com.dataguard.superherochallenge.service.exception.ConflictException;
 import com.dataguard.superherochallenge.service.exception.ObjectNotFoundException;
+import com.dataguard.superherochallenge.service.exception.PreconditionFailedException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.BDDMockito;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
@@ -35,6 +64,7 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(controllers = HeroController.class)
 @AutoConfigureMockMvc
+@Import(HeroResponseCache.class)
 class HeroControllerTest {
 
     private final String HERO_API = "/api/v1/heroes";
@@ -45,6 +75,20 @@ class HeroControllerTest {
     @MockBean
     HeroService heroService;
 
+    @MockBean
+    HeroImportService heroImportService;
+
+    @MockBean
+    HeroMultiGetService heroMultiGetService;
+
+    @Autowired
+    HeroResponseCache heroResponseCache;
+
+    @BeforeEach
+    void setup() {
+        heroResponseCache.invalidate();
+    }
+
     @Test
     @DisplayName("Should create a new hero with success")
     void AddNewHeroTest_shouldCreateWithSuccess() throws Exception {
@@ -261,6 +305,318 @@ class HeroControllerTest {
             .andExpect(status().isOk());
     }
 
+    @Test
+    @DisplayName("Should stream all heroes as NDJSON")
+    @SuppressWarnings("unchecked")
+    void itShouldStreamAllHeroesAsNdjson() throws Exception {
+        var heroes = buildListOfHeroes();
+
+        BDDMockito.willAnswer(invocation -> {
+            heroes.forEach(invocation.<Consumer<HeroDto>>getArgument(0));
+            return null;
+        }).given(heroService).streamAllHeroes(Mockito.any(Consumer.class));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+            .get(HERO_API)
+            .accept(MediaType.APPLICATION_NDJSON);
+
+        var result = mvc.perform(request)
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        var lines = mvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+            .andReturn()
+            .getResponse()
+            .getContentAsString()
+            .split("\n");
+
+        assertThat(lines).hasSize(2);
+        assertThat(lines[1]).startsWith("{");
+        assertThat(new ObjectMapper().readTree(lines[1]).get("name").asText()).isEqualTo("Iron Man");
+    }
+
+    @Test
+    @DisplayName("Should return the Server-Timing header only when it is requested")
+    void itShouldReturnServerTimingWhenRequested() throws Exception {
+        BDDMockito.given(heroService.findAllHeroes()).willReturn(buildListOfHeroes());
+
+        mvc.perform(MockMvcRequestBuilders.get(HERO_API).header(ServerTimingFilter.REQUEST_HEADER, "true"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(header().string(ServerTimingFilter.RESPONSE_HEADER,
+                matchesPattern("db;dur=[0-9.]+;desc=\"0 calls\", map;dur=[0-9.]+;desc=\"0 calls\", "
+                    + "json;dur=[0-9.]+;desc=\"1 calls\", total;dur=[0-9.]+")));
+
+        mvc.perform(MockMvcRequestBuilders.get(HERO_API))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(ServerTimingFilter.RESPONSE_HEADER));
+    }
+
+    @Test
+    @DisplayName("Should return the Server-Timing header of a streamed response")
+    @SuppressWarnings("unchecked")
+    void itShouldReturnServerTimingOfStreamedResponse() throws Exception {
+        var heroes = buildListOfHeroes();
+
+        BDDMockito.willAnswer(invocation -> {
+            heroes.forEach(invocation.<Consumer<HeroDto>>getArgument(0));
+            return null;
+        }).given(heroService).streamAllHeroes(Mockito.any(Consumer.class));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+            .get(HERO_API)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .header(ServerTimingFilter.REQUEST_HEADER, "true");
+
+        var result = mvc.perform(request)
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        var response = mvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(header().string(ServerTimingFilter.RESPONSE_HEADER, containsString("json;dur=")))
+            .andExpect(header().string(ServerTimingFilter.RESPONSE_HEADER, containsString("desc=\"2 calls\"")))
+            .andReturn()
+            .getResponse();
+
+        assertThat(response.getContentAsString().split("\n")).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should keep returning a JSON array when any media type is accepted")
+    void itShouldReturnJsonArrayWhenAnyMediaTypeIsAccepted() throws Exception {
+        BDDMockito.given(heroService.findAllHeroes()).willReturn(buildListOfHeroes());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+            .get(HERO_API)
+            .accept(MediaType.ALL);
+
+        mvc.perform(request)
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    @DisplayName("Should serve the cached body of a listing until the heroes change")
+    void itShouldServeCachedListingUntilHeroesChange() throws Exception {
+        BDDMockito.given(heroService.findHeroesByProperty("power", "flight")).willReturn(buildListOfHeroes());
+        var request = MockMvcRequestBuilders.get(HERO_API + "/properties?property=power&value=flight");
+
+        var first = mvc.perform(request)
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+            .andReturn().getResponse().getContentAsString();
+        var second = mvc.perform(request)
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andReturn().getResponse().getContentAsString();
+
+        assertThat(second).isEqualTo(first);
+        Mockito.verify(heroService, Mockito.times(1)).findHeroesByProperty("power", "flight");
+
+        heroResponseCache.invalidate();
+        mvc.perform(request).andExpect(status().isOk());
+        Mockito.verify(heroService, Mockito.times(2)).findHeroesByProperty("power", "flight");
+    }
+
+    @Test
+    @DisplayName("Should send the gzipped body to clients accepting gzip")
+    void itShouldSendGzippedBodyWhenAccepted() throws Exception {
+        var heroes = IntStream.range(0, 20)
+            .mapToObj(i -> buildListOfHeroes().get(i % 2))
+            .collect(Collectors.toList());
+        BDDMockito.given(heroService.findAllHeroes()).willReturn(heroes);
+
+        var plain = mvc.perform(MockMvcRequestBuilders.get(HERO_API))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+            .andExpect(jsonPath("$", hasSize(20)))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        var gzipped = mvc.perform(MockMvcRequestBuilders.get(HERO_API)
+                .header(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(gzipped.length).isLessThan(plain.length);
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertThat(in.readAllBytes()).isEqualTo(plain);
+        }
+
+        mvc.perform(MockMvcRequestBuilders.get(HERO_API).header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        Mockito.verify(heroService, Mockito.times(1)).findAllHeroes();
+    }
+
+    @Test
+    @DisplayName("Should compare the weights of the accepted encodings as numbers")
+    void itShouldCompareAcceptedEncodingWeights() throws Exception {
+        var heroes = IntStream.range(0, 20)
+            .mapToObj(i -> buildListOfHeroes().get(i % 2))
+            .collect(Collectors.toList());
+        BDDMockito.given(heroService.findAllHeroes()).willReturn(heroes);
+
+        for (var refused : List.of("gzip;q=0.0", "gzip; q=0.000", "*;q=0", "br, *;q=0", "gzip;q=0.5, identity",
+            "gzip;q=2", "gzip;q=abc", "")) {
+            mvc.perform(MockMvcRequestBuilders.get(HERO_API).header(HttpHeaders.ACCEPT_ENCODING, refused))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        }
+        for (var accepted : List.of("*", "x-gzip", "GZIP;Q=0.001", "gzip;q=1.000, identity;q=0.5", "br;q=1, *;q=0.1",
+            "*;q=0.5, identity;q=0")) {
+            mvc.perform(MockMvcRequestBuilders.get(HERO_API).header(HttpHeaders.ACCEPT_ENCODING, accepted))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer a revalidated listing with 304 before loading the heroes")
+    void itShouldAnswerUnchangedListingWithNotModified() throws Exception {
+        BDDMockito.given(heroService.findHeroesByPropertyVersion("power", "flight")).willReturn("W/\"2-3-101-100\"");
+        var request = MockMvcRequestBuilders.get(HERO_API + "/properties?property=power&value=flight")
+            .header(HttpHeaders.IF_NONE_MATCH, "W/\"2-3-101-100\"");
+
+        mvc.perform(request)
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, "W/\"2-3-101-100\""))
+            .andExpect(content().string(""));
+        Mockito.verify(heroService, Mockito.never()).findHeroesByProperty("power", "flight");
+
+        BDDMockito.given(heroService.findHeroesByPropertyVersion("power", "flight")).willReturn("W/\"2-4-101-100\"");
+        BDDMockito.given(heroService.findHeroesByProperty("power", "flight")).willReturn(buildListOfHeroes());
+        mvc.perform(request)
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "W/\"2-4-101-100\""))
+            .andExpect(jsonPath("$", hasSize(2)));
+
+        // the cached body keeps its ETag: no query at all
+        mvc.perform(request.header(HttpHeaders.IF_NONE_MATCH, "W/\"2-4-101-100\""))
+            .andExpect(status().isNotModified());
+        Mockito.verify(heroService, Mockito.times(2)).findHeroesByPropertyVersion("power", "flight");
+        Mockito.verify(heroService, Mockito.times(1)).findHeroesByProperty("power", "flight");
+    }
+
+    @Nested
+    @TestPropertySource(properties = "hero.response-cache.enabled=false")
+    class WithoutResponseCache {
+
+        // the ones of this context, not of the enclosing test's
+        @Autowired
+        MockMvc mvc;
+
+        @Autowired
+        HeroService heroService;
+
+        @Test
+        @DisplayName("Should read the version of a listing only when the client revalidates it")
+        void itShouldReadListingVersionOnlyWhenRevalidated() throws Exception {
+            BDDMockito.given(heroService.findHeroesByPropertyVersion("power", "flight")).willReturn("W/\"2-3-101-100\"");
+            BDDMockito.given(heroService.findHeroesByProperty("power", "flight")).willReturn(buildListOfHeroes());
+            var request = MockMvcRequestBuilders.get(HERO_API + "/properties?property=power&value=flight");
+
+            mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$", hasSize(2)));
+            Mockito.verify(heroService, Mockito.never()).findHeroesByPropertyVersion("power", "flight");
+
+            mvc.perform(request.header(HttpHeaders.IF_NONE_MATCH, "W/\"2-3-101-100\""))
+                .andExpect(status().isNotModified());
+            Mockito.verify(heroService, Mockito.times(1)).findHeroesByPropertyVersion("power", "flight");
+            Mockito.verify(heroService, Mockito.times(1)).findHeroesByProperty("power", "flight");
+        }
+
+    }
+
+    @Test
+    @DisplayName("Should answer a revalidated hero with 304")
+    void itShouldAnswerUnchangedHeroWithNotModified() throws Exception {
+        var heroDto = HeroDto.builder()
+            .id(7L)
+            .version(2L)
+            .name("Carol Danvers")
+            .alias("Captain Marvel")
+            .origin("Exposed to Space Stone reactor overload")
+            .build();
+        BDDMockito.given(heroService.findHeroByName("Carol Danvers")).willReturn(Optional.of(heroDto));
+
+        mvc.perform(MockMvcRequestBuilders.get(HERO_API + "/names").param("name", "Carol Danvers"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"7.2\""))
+            .andExpect(jsonPath("version").doesNotExist());
+
+        mvc.perform(MockMvcRequestBuilders.get(HERO_API + "/names").param("name", "Carol Danvers")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"7.2\""))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("Should fail an update with 412 when If-Match is stale")
+    void itShouldFailUpdateWhenIfMatchIsStale() throws Exception {
+        var heroDto = buildNewHero();
+        var json = new ObjectMapper().writeValueAsString(heroDto);
+        BDDMockito.given(heroService.updateHero(Mockito.eq(1L), Mockito.any(HeroDto.class), Mockito.eq(2L)))
+            .willThrow(new PreconditionFailedException("Hero was changed by another request"));
+
+        mvc.perform(MockMvcRequestBuilders.put(HERO_API + "/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"1.2\"")
+                .content(json))
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(jsonPath("message").value("Hero was changed by another request"));
+
+        // a tag of another hero can't match
+        mvc.perform(MockMvcRequestBuilders.put(HERO_API + "/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"12.3\"")
+                .content(json))
+            .andExpect(status().isPreconditionFailed());
+        Mockito.verify(heroService, Mockito.times(1))
+            .updateHero(Mockito.anyLong(), Mockito.any(HeroDto.class), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Should return a page of heroes with the next cursor")
+    void itShouldReturnPageOfHeroesWithNextCursor() throws Exception {
+        var page = HeroPageDto.builder()
+            .heroes(buildListOfHeroes())
+            .nextCursor("Mg")
+            .build();
+
+        BDDMockito.given(heroService.findHeroesPage("MQ", 2)).willReturn(page);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+            .get(HERO_API)
+            .accept(MediaType.APPLICATION_JSON)
+            .param("after", "MQ")
+            .param("limit", "2");
+
+        mvc.perform(request)
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Next-Cursor", "Mg"))
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$[0].name").value("Carol Danvers"));
+    }
+
+    @Test
+    @DisplayName("Should throw BadRequestException when page limit is out of range")
+    void itShouldThrowBadRequestExceptionWhenLimitIsOutOfRange() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+            .get(HERO_API)
+            .accept(MediaType.APPLICATION_JSON)
+            .param("limit", "0");
+
+        mvc.perform(request)
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("messages[0]").value("Limit must be between 1 and 1000"));
+    }
+
     @Test
     @DisplayName("Should get all heroes with property 'power'")
     void itShouldReturnAllHeroesByPropertyPower() throws Exception {
@@ -325,6 +681,23 @@ class HeroControllerTest {
             .andExpect(jsonPath("$[1].associations", hasSize(5)));
     }
 
+    @Test
+    @DisplayName("Should get all heroes matching a compound query")
+    void itShouldReturnAllHeroesMatchingCompoundQuery() throws Exception {
+        var query = "power=flight AND weapon=arc-reactor OR association=avengers";
+
+        BDDMockito.given(heroService.findHeroesByQuery(query)).willReturn(buildListOfHeroes());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+            .get(HERO_API + "/properties/query")
+            .accept(MediaType.APPLICATION_JSON)
+            .param("q", query);
+
+        mvc.perform(request)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)));
+    }
+
     @Test
     @DisplayName("Should throw BadRequestException when property is invalid")
     void itShouldThrowBadRequestExceptionWhenPropertyIsInvalid() throws Exception {
@@ -351,6 +724,34 @@ class HeroControllerTest {
             .andExpect(jsonPath("messages").doesNotExist());
     }
 
+    @Test
+    @DisplayName("Should import heroes in bulk and report the rejected rows")
+    void itShouldImportHeroesInBulk() throws Exception {
+        var result = BulkImportResultDto.builder()
+            .imported(1)
+            .failed(1)
+            .errors(List.of(new BulkImportErrorDto(2, "Carol Danvers", "Hero already exists")))
+            .build();
+
+        BDDMockito.given(heroImportService.importHeroes(Mockito.any(InputStream.class))).willReturn(result);
+
+        var ndjson = new ObjectMapper().writeValueAsString(buildNewHero()) + "\n"
+            + new ObjectMapper().writeValueAsString(buildNewHero());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+            .post(HERO_API + "/_bulk")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .content(ndjson);
+
+        mvc.perform(request)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("imported").value(1))
+            .andExpect(jsonPath("failed").value(1))
+            .andExpect(jsonPath("errors[0].line").value(2))
+            .andExpect(jsonPath("errors[0].message").value("Hero already exists"));
+    }
+
     @Test
     @DisplayName("Should update a hero")
     void itShouldUpdateAHero() throws Exception {
@@ -365,7 +766,7 @@ class HeroControllerTest {
             .weapons(new String[]{"Java", "MacBook", "Git", "Microservices"})
             .build();
 
-        BDDMockito.given(heroService.updateHero(Mockito.anyLong(), Mockito.any(HeroDto.class)))
+        BDDMockito.given(heroService.updateHero(Mockito.anyLong(), Mockito.any(HeroDto.class), Mockito.isNull()))
             .willReturn(heroSaved);
 
         var json = new ObjectMapper().writeValueAsString(heroSaved);
@@ -394,26 +795,104 @@ class HeroControllerTest {
     }
 
     @Test
-    @DisplayName("Should delete a hero")
-    void itShouldDeleteAHero() throws Exception {
-        var heroSaved = Hero.builder()
-            .name("Lucas Barbosa")
-            .alias("Captain IT")
-            .origin("Exposed to Java and programming logic")
-            .powers(new String[]{"smart", "speed", "team-worker"})
-            .associations(new String[]{"DataGuard"})
-            .weapons(new String[]{"Java", "MacBook", "Git", "Microservices"})
+    @DisplayName("Should patch a hero")
+    void itShouldPatchAHero() throws Exception {
+        var heroPatched = HeroDto.builder()
+            .id(1L)
+            .version(3L)
+            .name("Carol Danvers")
+            .alias("Binary")
+            .origin("Exposed to Space Stone reactor overload")
+            .powers(new String[]{"flight", "cosmic-awareness"})
             .build();
+        BDDMockito.given(heroService.patchHero(Mockito.eq(1L), Mockito.any(HeroPatchDto.class), Mockito.eq(2L)))
+            .willReturn(heroPatched);
 
-        BDDMockito.given(heroService.findHeroById(Mockito.anyLong()))
-            .willReturn(heroSaved);
+        mvc.perform(MockMvcRequestBuilders.patch(HERO_API + "/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"1.2\"")
+                .content("{\"alias\":\"Binary\",\"powers\":{\"add\":[\"cosmic-awareness\"],\"remove\":[\"healing\"]}}"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"1.3\""))
+            .andExpect(jsonPath("alias").value("Binary"))
+            .andExpect(jsonPath("powers", hasSize(2)));
+
+        var captor = ArgumentCaptor.forClass(HeroPatchDto.class);
+        Mockito.verify(heroService).patchHero(Mockito.eq(1L), captor.capture(), Mockito.eq(2L));
+        assertThat(captor.getValue().getName()).isNull();
+        assertThat(captor.getValue().getAlias()).isEqualTo("Binary");
+        assertThat(captor.getValue().getPowers().getAdd()).containsExactly("cosmic-awareness");
+        assertThat(captor.getValue().getPowers().getRemove()).containsExactly("healing");
+        assertThat(captor.getValue().getWeapons()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should not patch a hero with a blank name")
+    void itShouldNotPatchBlankName() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.patch(HERO_API + "/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\" \"}"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("messages[0]").value("Name cannot be empty"));
+
+        Mockito.verify(heroService, Mockito.never()).patchHero(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Should find many heroes at once, keeping misses in place")
+    void itShouldFindManyHeroes() throws Exception {
+        var captor = ArgumentCaptor.forClass(HeroMultiGetDto.class);
+        BDDMockito.given(heroMultiGetService.findHeroes(captor.capture()))
+            .willReturn(List.of(
+                HeroMultiGetItemDto.builder().name("Carol Danvers").found(true).hero(buildNewHero()).build(),
+                HeroMultiGetItemDto.builder().name("Nobody").found(false).build()));
+
+        mvc.perform(MockMvcRequestBuilders.post(HERO_API + "/_mget")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"names\":[\"Carol Danvers\",\"Nobody\"]}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("[0].found").value(true))
+            .andExpect(jsonPath("[0].hero.alias").value("Captain Marvel"))
+            .andExpect(jsonPath("[1].name").value("Nobody"))
+            .andExpect(jsonPath("[1].found").value(false))
+            .andExpect(jsonPath("[1].hero").doesNotExist());
 
+        assertThat(captor.getValue().getNames()).containsExactly("Carol Danvers", "Nobody");
+    }
+
+    @Test
+    @DisplayName("Should delete a hero")
+    void itShouldDeleteAHero() throws Exception {
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
             .delete(HERO_API + "/1")
             .accept(MediaType.APPLICATION_JSON);
 
         mvc.perform(request)
             .andExpect(status().isNoContent());
+
+        Mockito.verify(heroService).deleteHero(1L);
+    }
+
+    @Test
+    @DisplayName("Should delete heroes by ids")
+    void itShouldDeleteHeroesByIds() throws Exception {
+        BDDMockito.given(heroService.deleteHeroes(List.of(1L, 2L, 3L)))
+            .willReturn(BulkDeleteResultDto.builder().requested(3).deleted(2).build());
+
+        mvc.perform(MockMvcRequestBuilders.delete(HERO_API).param("ids", "1,2,3"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("requested").value(3))
+            .andExpect(jsonPath("deleted").value(2));
+    }
+
+    @Test
+    @DisplayName("Should refuse a bulk delete without ids")
+    void itShouldRefuseBulkDeleteWithoutIds() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.delete(HERO_API).param("ids", ""))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("messages[0]").value("Ids is missing and is required"));
+
+        Mockito.verify(heroService, Mockito.never()).deleteHeroes(Mockito.any());
     }
 
     private HeroDto buildNewHero() {
@@ -0,0 +1,72 @@
+package com.dataguard.superherochallenge.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.repository.HeroRepository;
+import com.dataguard.superherochallenge.repository.HeroValueDictionary;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest
+@Import({HeroNameFilter.class, HeroValueDictionary.class})
+class HeroNameFilterTest {
+
+    @Autowired
+    TestEntityManager testEntityManager;
+
+    @Autowired
+    HeroNameFilter heroNameFilter;
+
+    @Test
+    @DisplayName("Should report every name as possibly existing before it is built")
+    void itShouldReportEveryNameBeforeBuild() {
+        var filter = new HeroNameFilter(null, 100, 0.01);
+
+        assertThat(filter.mightContain("Tony Stark")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should contain the saved names and the names added after the build")
+    void itShouldContainSavedAndAddedNames() {
+        testEntityManager.persistAndFlush(Hero.builder()
+            .name("Carol Danvers")
+            .alias("Captain Marvel")
+            .origin("Exposed to Space Stone reactor overload")
+            .powers(new String[]{"flight"})
+            .weapons(new String[0])
+            .associations(new String[0])
+            .build());
+
+        heroNameFilter.build();
+        heroNameFilter.add("Tony Stark");
+
+        assertThat(heroNameFilter.mightContain("Carol Danvers")).isTrue();
+        assertThat(heroNameFilter.mightContain("Tony Stark")).isTrue();
+        assertThat(heroNameFilter.mightContain("Peter Parker")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should contain the names added while it is being built")
+    void itShouldContainNamesAddedDuringBuild() {
+        var heroRepository = Mockito.mock(HeroRepository.class);
+        var filter = new HeroNameFilter(heroRepository, 100, 0.01);
+        // a hero saved by a request while the names are being read
+        when(heroRepository.streamAllNames())
+            .thenReturn(Stream.of("Carol Danvers").peek(name -> filter.add("Tony Stark")));
+
+        filter.build();
+
+        assertThat(filter.mightContain("Carol Danvers")).isTrue();
+        assertThat(filter.mightContain("Tony Stark")).isTrue();
+        assertThat(filter.mightContain("Peter Parker")).isFalse();
+    }
+
+}
@@ -0,0 +1,191 @@
+package com.dataguard.superherochallenge.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.entity.HeroProperty;
+import com.dataguard.superherochallenge.repository.HeroRepository;
+import com.dataguard.superherochallenge.repository.HeroValueDictionary;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest
+@Import({HeroPropertyIndex.class, HeroValueDictionary.class})
+class HeroPropertyIndexTest {
+
+    private static final int HEROES = 500;
+    private static final int VALUES = 20;
+
+    @Autowired
+    TestEntityManager testEntityManager;
+
+    @Autowired
+    HeroRepository heroRepository;
+
+    @Autowired
+    HeroPropertyIndex heroPropertyIndex;
+
+    @BeforeEach
+    public void setup() {
+        var random = new Random(42);
+        IntStream.range(0, HEROES)
+            .mapToObj(i -> Hero.builder()
+                .name("Hero " + i)
+                .alias("Alias " + i)
+                .origin("Origin " + i)
+                .powers(randomValues(random, "power-"))
+                .weapons(randomValues(random, "weapon-"))
+                .associations(randomValues(random, "association-"))
+                .build())
+            .forEach(testEntityManager::persist);
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        heroPropertyIndex.build();
+    }
+
+    @Test
+    @DisplayName("Should find the same heroes as the database for every property and value")
+    void itShouldBeConsistentWithDatabase() {
+        assertThat(heroPropertyIndex.isReady()).isTrue();
+
+        IntStream.range(0, VALUES).forEach(i -> {
+            assertThat(heroPropertyIndex.find(HeroProperty.POWER, "power-" + i))
+                .containsExactlyElementsOf(idsOf(heroRepository.findByProperty(HeroProperty.POWER, "power-" + i)));
+            assertThat(heroPropertyIndex.find(HeroProperty.WEAPON, "weapon-" + i))
+                .containsExactlyElementsOf(idsOf(heroRepository.findByProperty(HeroProperty.WEAPON, "weapon-" + i)));
+            assertThat(heroPropertyIndex.find(HeroProperty.ASSOCIATION, "association-" + i))
+                .containsExactlyElementsOf(
+                    idsOf(heroRepository.findByProperty(HeroProperty.ASSOCIATION, "association-" + i)));
+        });
+    }
+
+    @Test
+    @DisplayName("Should keep the index consistent when heroes are added and removed")
+    void itShouldBeConsistentAfterIncrementalUpdates() {
+        var hero = testEntityManager.persist(Hero.builder()
+            .name("Carol Danvers")
+            .alias("Captain Marvel")
+            .origin("Exposed to Space Stone reactor overload")
+            .powers(new String[]{"photon-blast", "flight"})
+            .weapons(new String[0])
+            .associations(new String[]{"avengers"})
+            .build());
+        heroPropertyIndex.add(hero);
+
+        assertThat(heroPropertyIndex.find(HeroProperty.POWER, "photon-blast")).containsExactly(hero.getId());
+        assertThat(heroPropertyIndex.find(HeroProperty.ASSOCIATION, "avengers"))
+            .containsExactlyElementsOf(idsOf(heroRepository.findByProperty(HeroProperty.ASSOCIATION, "avengers")));
+
+        heroPropertyIndex.removeAll(List.of(hero.getId()));
+
+        assertThat(heroPropertyIndex.find(HeroProperty.POWER, "photon-blast")).isEmpty();
+        assertThat(heroPropertyIndex.find(HeroProperty.POWER, "power-0"))
+            .containsExactlyElementsOf(idsOf(heroRepository.findByProperty(HeroProperty.POWER, "power-0")));
+    }
+
+    @Test
+    @DisplayName("Should replace the values indexed for a hero, ignoring an older version")
+    void itShouldReplaceIndexedValuesOfHero() {
+        var hero = testEntityManager.persist(Hero.builder()
+            .name("Wanda Maximoff")
+            .alias("Scarlet Witch")
+            .origin("Mind Stone")
+            .powers(new String[]{"telekinesis"})
+            .weapons(new String[0])
+            .associations(new String[]{"avengers"})
+            .build());
+        heroPropertyIndex.add(hero);
+        var renamed = copyOf(hero, 2, "chaos-magic");
+        var stale = copyOf(hero, 1, "hex");
+
+        heroPropertyIndex.update(renamed);
+        heroPropertyIndex.update(stale);
+
+        assertThat(heroPropertyIndex.find(HeroProperty.POWER, "telekinesis")).isEmpty();
+        assertThat(heroPropertyIndex.find(HeroProperty.POWER, "hex")).isEmpty();
+        assertThat(heroPropertyIndex.find(HeroProperty.POWER, "chaos-magic")).containsExactly(hero.getId());
+    }
+
+    @Test
+    @DisplayName("Should remove heroes known only by their ids")
+    void itShouldRemoveHeroesById() {
+        var removed = heroPropertyIndex.find(HeroProperty.POWER, "power-0");
+        assertThat(removed).isNotEmpty();
+
+        heroPropertyIndex.removeAll(removed);
+
+        assertThat(heroPropertyIndex.find(HeroProperty.POWER, "power-0")).isEmpty();
+        IntStream.range(0, VALUES).forEach(i ->
+            assertThat(heroPropertyIndex.find(HeroProperty.WEAPON, "weapon-" + i))
+                .doesNotContainAnyElementsOf(removed)
+                .containsExactlyElementsOf(idsOf(heroRepository.findByProperty(HeroProperty.WEAPON, "weapon-" + i))
+                    .stream()
+                    .filter(id -> !removed.contains(id))
+                    .collect(Collectors.toList())));
+    }
+
+    @Test
+    @DisplayName("Should evaluate compound queries like the equivalent filter over all heroes")
+    void itShouldEvaluateCompoundQueries() {
+        var heroes = heroRepository.findAll();
+        var query = HeroQuery.parse("power=power-1 AND weapon=weapon-2 OR association=association-3 and power=power-4");
+
+        var expected = heroes.stream()
+            .filter(hero -> (has(hero.getPowers(), "power-1") && has(hero.getWeapons(), "weapon-2"))
+                || (has(hero.getAssociations(), "association-3") && has(hero.getPowers(), "power-4")))
+            .collect(Collectors.toList());
+
+        assertThat(expected).isNotEmpty();
+        assertThat(heroPropertyIndex.find(query)).containsExactlyElementsOf(idsOf(expected));
+    }
+
+    @Test
+    @DisplayName("Should return no heroes when a term of the only group has no match")
+    void itShouldReturnNoHeroesWhenTermHasNoMatch() {
+        var query = HeroQuery.parse("power=power-1 AND weapon=unknown");
+
+        assertThat(heroPropertyIndex.find(query)).isEmpty();
+    }
+
+    private Hero copyOf(Hero hero, long version, String power) {
+        return Hero.builder()
+            .id(hero.getId())
+            .version(version)
+            .name(hero.getName())
+            .alias(hero.getAlias())
+            .origin(hero.getOrigin())
+            .powers(new String[]{power})
+            .weapons(hero.getWeapons())
+            .associations(hero.getAssociations())
+            .build();
+    }
+
+    private boolean has(String[] values, String value) {
+        return List.of(values).contains(value);
+    }
+
+    private List<Long> idsOf(List<Hero> heroes) {
+        return heroes.stream()
+            .map(Hero::getId)
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    private String[] randomValues(Random random, String prefix) {
+        return IntStream.range(0, random.nextInt(4))
+            .mapToObj(i -> prefix + random.nextInt(VALUES))
+            .distinct()
+            .toArray(String[]::new);
+    }
+
+}
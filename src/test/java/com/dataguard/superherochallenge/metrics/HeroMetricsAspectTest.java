@@ -0,0 +1,122 @@
+package com.dataguard.superherochallenge.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dataguard.superherochallenge.adapter.HeroAdapter;
+import com.dataguard.superherochallenge.cache.HeroNameCache;
+import com.dataguard.superherochallenge.cache.HeroResponseCache;
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.index.HeroNameFilter;
+import com.dataguard.superherochallenge.index.HeroPropertyIndex;
+import com.dataguard.superherochallenge.repository.HeroRepository;
+import com.dataguard.superherochallenge.repository.HeroValueDictionary;
+import com.dataguard.superherochallenge.service.HeroService;
+import com.dataguard.superherochallenge.service.impl.HeroServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest
+@ImportAutoConfiguration(AopAutoConfiguration.class)
+@Import({HeroMetricsAspect.class, HeroServiceImpl.class, HeroAdapter.class, HeroPropertyIndex.class,
+    HeroNameFilter.class, HeroNameCache.class, HeroResponseCache.class, HeroValueDictionary.class,
+    SimpleMeterRegistry.class})
+class HeroMetricsAspectTest {
+
+    @Autowired
+    HeroService heroService;
+
+    @Autowired
+    HeroRepository heroRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry.clear();
+    }
+
+    @Test
+    @DisplayName("Should time service operations and repository queries tagged as ok")
+    void itShouldTimeSuccessfulCalls() {
+        var id = heroRepository.save(Hero.builder()
+            .name("Carol Danvers")
+            .alias("Captain Marvel")
+            .origin("Exposed to Space Stone reactor overload")
+            .build()).getId();
+
+        heroService.findHeroById(id);
+
+        assertThat(count(HeroMetricsAspect.SERVICE_METRIC, "findHeroById", Outcome.OK)).isEqualTo(1);
+        assertThat(count(HeroMetricsAspect.REPOSITORY_METRIC, "findById", Outcome.OK)).isEqualTo(1);
+        assertThat(count(HeroMetricsAspect.REPOSITORY_METRIC, "save", Outcome.OK)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should tag the outcome with the status the exception is mapped to")
+    void itShouldTagFailuresByOutcome() {
+        Assertions.catchThrowable(() -> heroService.findHeroById(-1L));
+        Assertions.catchThrowable(() -> heroService.findHeroByName(null));
+
+        assertThat(count(HeroMetricsAspect.SERVICE_METRIC, "findHeroById", Outcome.NOT_FOUND)).isEqualTo(1);
+        assertThat(count(HeroMetricsAspect.SERVICE_METRIC, "findHeroByName", Outcome.BAD_REQUEST)).isEqualTo(1);
+        assertThat(count(HeroMetricsAspect.REPOSITORY_METRIC, "findById", Outcome.OK)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should record a flight recorder event for hero operations")
+    void itShouldRecordHeroOperationEvents() throws Exception {
+        for (String name : new String[]{"Tony Stark", "Pepper Potts"}) {
+            heroService.addNewHero(HeroDto.builder()
+                .name(name)
+                .alias(name)
+                .origin("Stark Industries")
+                .powers(new String[0])
+                .weapons(new String[]{"arc-reactor"})
+                .associations(new String[0])
+                .build());
+        }
+        var file = Files.createTempFile("hero", ".jfr");
+
+        try (var recording = new Recording()) {
+            recording.enable(HeroOperationEvent.class);
+            recording.start();
+            heroService.findHeroesByProperty("weapon", "arc-reactor");
+            Assertions.catchThrowable(() -> heroService.findHeroByName(null));
+            // not a @HeroOperation
+            Assertions.catchThrowable(() -> heroService.findHeroById(-1L));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        var events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        assertThat(events).hasSize(2);
+        assertThat(events.get(0).getString("operation")).isEqualTo("findHeroesByProperty");
+        assertThat(events.get(0).getString("property")).isEqualTo("weapon");
+        assertThat(events.get(0).getString("value")).isEqualTo("arc-reactor");
+        assertThat(events.get(0).getInt("resultCount")).isEqualTo(2);
+        assertThat(events.get(0).getString("outcome")).isEqualTo("ok");
+        assertThat(events.get(1).getString("operation")).isEqualTo("findHeroByName");
+        assertThat(events.get(1).getString("outcome")).isEqualTo("bad-request");
+    }
+
+    private long count(String metric, String method, Outcome outcome) {
+        var timer = meterRegistry.find(metric).tag("method", method).tag("outcome", outcome.getTag()).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.dataguard.superherochallenge.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@ExtendWith(OutputCaptureExtension.class)
+class StatementBudgetFilterTest {
+
+    private static final StatementCounter STATEMENT_COUNTER = new StatementCounter();
+
+    MockMvc mockMvc;
+
+    @BeforeEach
+    public void setup() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new StatementsController())
+            .addFilters(new StatementBudgetFilter(2))
+            .build();
+    }
+
+    @Test
+    @DisplayName("Should warn about a request over the budget")
+    void itShouldWarnAboutRequestOverBudget(CapturedOutput output) throws Exception {
+        mockMvc.perform(get("/statements")).andExpect(status().isOk());
+
+        assertThat(output).contains("GET /statements ran 3 SQL statements, over the budget of 2");
+    }
+
+    @Test
+    @DisplayName("Should count the statements of a streamed body, run by another thread")
+    void itShouldCountStatementsOfStreamedBody(CapturedOutput output) throws Exception {
+        var result = mockMvc.perform(get("/statements/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        assertThat(output).doesNotContain("[statementBudget]");
+
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        assertThat(output).contains("GET /statements/stream ran 4 SQL statements, over the budget of 2");
+    }
+
+    @RestController
+    static class StatementsController {
+
+        @GetMapping("/statements")
+        public String statements() {
+            inspect(3);
+            return "ok";
+        }
+
+        @GetMapping("/statements/stream")
+        public StreamingResponseBody stream() {
+            inspect(1);
+            return outputStream -> inspect(3);
+        }
+
+        // What Hibernate does for every statement it prepares
+        private static void inspect(int statements) {
+            for (int i = 0; i < statements; i++) {
+                STATEMENT_COUNTER.inspect("select 1");
+            }
+        }
+
+    }
+
+}
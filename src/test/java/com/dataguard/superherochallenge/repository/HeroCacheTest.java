@@ -0,0 +1,118 @@
+package com.dataguard.superherochallenge.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dataguard.superherochallenge.entity.Hero;
+import java.util.List;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest(properties = "hero.cache.enabled=true")
+@Import(HeroValueDictionary.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HeroCacheTest {
+
+    @Autowired
+    HeroRepository heroRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+
+    @BeforeEach
+    public void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        heroRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should read a hero and its collections from the second-level cache")
+    void itShouldReadHeroFromCache() {
+        var id = heroRepository.save(buildNewHero()).getId();
+        heroRepository.findById(id);
+        statistics.clear();
+
+        var hero = heroRepository.findById(id);
+
+        assertThat(hero).isPresent();
+        assertThat(hero.get().getPowers()).containsExactly("flight", "energy projection");
+        assertThat(hero.get().getAssociations()).containsExactly("Avengers");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(4);
+        assertThat(statistics.getSecondLevelCacheMissCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not return stale heroes after updating them")
+    void itShouldInvalidateCacheOnUpdate() {
+        var id = heroRepository.save(buildNewHero()).getId();
+        heroRepository.findById(id);
+
+        heroRepository.save(Hero.builder()
+            .id(id)
+            .name("Carol Danvers")
+            .alias("Binary")
+            .origin("Exposed to Space Stone reactor overload")
+            .powers(new String[]{"flight"})
+            .weapons(new String[]{})
+            .associations(new String[]{"Avengers", "Starforce"})
+            .build());
+        var hero = heroRepository.findById(id);
+
+        assertThat(hero).isPresent();
+        assertThat(hero.get().getAlias()).isEqualTo("Binary");
+        assertThat(hero.get().getPowers()).containsExactly("flight");
+        assertThat(hero.get().getAssociations()).containsExactly("Avengers", "Starforce");
+    }
+
+    @Test
+    @DisplayName("Should not return heroes that were deleted")
+    void itShouldInvalidateCacheOnDelete() {
+        var id = heroRepository.save(buildNewHero()).getId();
+        heroRepository.findById(id);
+
+        heroRepository.deleteById(id);
+
+        assertThat(heroRepository.findById(id)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should not return heroes that were deleted by id without being loaded")
+    void itShouldInvalidateCacheOnDeleteById() {
+        var id = heroRepository.save(buildNewHero()).getId();
+        heroRepository.findById(id);
+
+        heroRepository.deleteValuesByHeroIdIn(List.of(id));
+        var deleted = heroRepository.deleteHeroesByIdIn(List.of(id));
+
+        assertThat(deleted).isEqualTo(1);
+        assertThat(heroRepository.findById(id)).isEmpty();
+    }
+
+    private Hero buildNewHero() {
+        return Hero.builder()
+            .name("Carol Danvers")
+            .alias("Captain Marvel")
+            .origin("Exposed to Space Stone reactor overload")
+            .powers(new String[]{"flight", "energy projection"})
+            .weapons(new String[]{})
+            .associations(new String[]{"Avengers"})
+            .build();
+    }
+
+}
@@ -3,15 +3,30 @@ package com.dataguard.superherochallenge.repository;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.entity.HeroProperty;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.IntStream;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
-@DataJpaTest
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.dataguard.superherochallenge.repository.RecordingStatementInspector"
+})
+@Import({HeroValueDictionary.class, RowCounter.class})
 class HeroRepositoryTest {
 
     @Autowired
@@ -20,6 +35,18 @@ class HeroRepositoryTest {
     @Autowired
     HeroRepository heroRepository;
 
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    RowCounter rowCounter;
+
+    @Autowired
+    HeroValueDictionary heroValueDictionary;
+
     @Test
     @DisplayName("Should return a Hero by name with success")
     void itShouldReturnHeroByNameWithSuccess() {
@@ -38,6 +65,16 @@ class HeroRepositoryTest {
         assertThat(hero.get().getAssociations()).hasSize(5);
     }
 
+    @Test
+    @DisplayName("Should not save two heroes with the same name")
+    void itShouldNotSaveTwoHeroesWithSameName() {
+        testEntityManager.persistAndFlush(buildNewHero());
+
+        Throwable exception = Assertions.catchThrowable(() -> testEntityManager.persistAndFlush(buildNewHero()));
+
+        assertThat(exception).isInstanceOf(PersistenceException.class);
+    }
+
     @Test
     @DisplayName("Should return a Hero by property 'power'")
     void itShouldReturnHeroByPowerProperty() {
@@ -46,7 +83,7 @@ class HeroRepositoryTest {
         testEntityManager.persist(heroes.get(0));
         testEntityManager.persist(heroes.get(1));
 
-        var hero = heroRepository.findByPower(powerValue);
+        var hero = heroRepository.findByProperty(HeroProperty.POWER, powerValue);
 
         assertThat(hero).hasSize(2);
 
@@ -75,7 +112,7 @@ class HeroRepositoryTest {
         testEntityManager.persist(heroes.get(0));
         testEntityManager.persist(heroes.get(1));
 
-        var hero = heroRepository.findByWeapon(weaponValue);
+        var hero = heroRepository.findByProperty(HeroProperty.WEAPON, weaponValue);
 
         assertThat(hero).hasSize(1);
 
@@ -96,7 +133,7 @@ class HeroRepositoryTest {
         testEntityManager.persist(heroes.get(0));
         testEntityManager.persist(heroes.get(1));
 
-        var hero = heroRepository.findByAssociation(associationValue);
+        var hero = heroRepository.findByProperty(HeroProperty.ASSOCIATION, associationValue);
 
         assertThat(hero).hasSize(2);
 
@@ -117,6 +154,188 @@ class HeroRepositoryTest {
         assertThat(hero.get(1).getAssociations()).hasSize(5);
     }
 
+    @Test
+    @DisplayName("Should load all heroes and their collections with a constant number of statements")
+    void itShouldFindAllHeroesWithConstantNumberOfStatements() {
+        IntStream.range(0, 20)
+            .mapToObj(i -> Hero.builder()
+                .name("Hero " + i)
+                .alias("Alias " + i)
+                .origin("Origin " + i)
+                .powers(new String[]{"flight", "power-" + i})
+                .weapons(new String[]{"weapon-" + i})
+                .associations(new String[]{"avengers"})
+                .build())
+            .forEach(testEntityManager::persist);
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        var heroes = heroRepository.findAll();
+
+        assertThat(heroes).hasSize(20);
+        heroes.forEach(hero -> {
+            assertThat(hero.getPowers()).hasSize(2);
+            assertThat(hero.getWeapons()).hasSize(1);
+            assertThat(hero.getAssociations()).hasSize(1);
+        });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should seek the ids of the next page after a given id")
+    void itShouldSeekHeroIdsAfterGivenId() {
+        var heroes = buildListOfHeroes();
+        var firstId = testEntityManager.persist(heroes.get(0)).getId();
+        var secondId = testEntityManager.persist(heroes.get(1)).getId();
+
+        assertThat(heroRepository.findIdsAfter(0L, PageRequest.of(0, 1))).containsExactly(firstId);
+        assertThat(heroRepository.findIdsAfter(firstId, PageRequest.of(0, 10))).containsExactly(secondId);
+        assertThat(heroRepository.findIdsByPropertyAfter(HeroProperty.POWER, "flight", firstId, 10))
+            .containsExactly(secondId);
+        assertThat(heroRepository.findIdsByPropertyAfter(HeroProperty.WEAPON, "arc-reactor", secondId, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should look up heroes by property through the value indexes instead of scanning")
+    void itShouldUseIndexesForPropertyQueries() {
+        var heroes = buildListOfHeroes();
+        testEntityManager.persist(heroes.get(0));
+        testEntityManager.persist(heroes.get(1));
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        // the statements bind the dictionary ids the converter turns the values into
+        var flight = idOf(HeroProperty.POWER, "flight");
+        var arcReactor = idOf(HeroProperty.WEAPON, "arc-reactor");
+        var avengers = idOf(HeroProperty.ASSOCIATION, "avengers");
+
+        assertIndexedPlan(() -> heroRepository.findByProperty(HeroProperty.POWER, "flight"), flight);
+        assertIndexedPlan(() -> heroRepository.findByProperty(HeroProperty.WEAPON, "arc-reactor"), arcReactor);
+        assertIndexedPlan(() -> heroRepository.findByProperty(HeroProperty.ASSOCIATION, "avengers"), avengers);
+        assertIndexedPlan(() -> heroRepository.findIdsByPropertyAfter(HeroProperty.POWER, "flight", 0L, 10),
+            flight, 0L, 10);
+        assertIndexedPlan(() -> heroRepository.findIdsByPropertyAfter(HeroProperty.WEAPON, "arc-reactor", 0L, 10),
+            arcReactor, 0L, 10);
+        assertIndexedPlan(() -> heroRepository.findIdsByPropertyAfter(HeroProperty.ASSOCIATION, "avengers", 0L, 10),
+            avengers, 0L, 10);
+    }
+
+    @Test
+    @DisplayName("Should change the aggregate version of a list whenever one of its heroes changes")
+    void itShouldChangeAggregateVersionOnEveryWrite() {
+        var heroes = buildListOfHeroes();
+        var carol = testEntityManager.persistAndFlush(heroes.get(0));
+        var last = testEntityManager.persistAndFlush(heroes.get(1));
+        var before = heroRepository.findHeroesVersionByProperty(HeroProperty.POWER, "flight");
+
+        assertThat(before.getHeroes()).isEqualTo(2);
+        assertThat(before.getLastId()).isEqualTo(last.getId());
+        assertThat(heroRepository.findHeroesVersionByProperty(HeroProperty.WEAPON, "arc-reactor").getHeroes())
+            .isEqualTo(1);
+        assertThat(heroRepository.findHeroesVersionByProperty(HeroProperty.ASSOCIATION, "nobody").getHeroes()).isZero();
+
+        testEntityManager.detach(carol);
+        heroRepository.saveAndFlush(Hero.builder()
+            .id(carol.getId())
+            .version(carol.getVersion())
+            .name(carol.getName())
+            .alias("Binary")
+            .origin(carol.getOrigin())
+            .powers(carol.getPowers())
+            .build());
+        var after = heroRepository.findHeroesVersionByProperty(HeroProperty.POWER, "flight");
+
+        assertThat(after.getHeroes()).isEqualTo(before.getHeroes());
+        assertThat(after.getVersions()).isEqualTo(before.getVersions() + 1);
+        assertThat(heroRepository.findHeroesVersion().getVersions()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should refuse to overwrite a hero updated since it was read")
+    void itShouldRefuseToOverwriteStaleHero() {
+        var carol = testEntityManager.persistAndFlush(buildNewHero());
+        var staleVersion = carol.getVersion();
+        testEntityManager.detach(carol);
+        heroRepository.saveAndFlush(copyOf(carol, staleVersion, "Binary"));
+
+        Throwable exception = Assertions.catchThrowable(() ->
+            heroRepository.saveAndFlush(copyOf(carol, staleVersion, "Warbird")));
+
+        assertThat(exception).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    }
+
+    @Test
+    @DisplayName("Should write only the changed column and collection rows of a managed hero")
+    void itShouldWriteOnlyChangedColumnsAndRows() {
+        var id = testEntityManager.persistAndFlush(buildNewHero()).getId();
+        testEntityManager.clear();
+        var hero = heroRepository.findById(id).orElseThrow();
+
+        RecordingStatementInspector.clear();
+        hero.setAlias("Binary");
+        hero.values(HeroProperty.POWER).add("cosmic-awareness");
+        hero.values(HeroProperty.ASSOCIATION).remove("avengers");
+        testEntityManager.flush();
+
+        assertThat(RecordingStatementInspector.getStatements()).containsExactlyInAnyOrder(
+            "update hero set alias=?, version=? where id=? and version=?",
+            "insert into hero_powers (hero_id, position, power_id) values (?, ?, ?)",
+            "delete from hero_associations where hero_id=? and position=?");
+        testEntityManager.clear();
+        assertThat(heroRepository.findById(id).orElseThrow().getPowers())
+            .containsExactly("photon-blast", "flight", "super-strength", "healing", "cosmic-awareness");
+    }
+
+    @Test
+    @DisplayName("Should rewrite the positions after a removed value")
+    void itShouldRewritePositionsAfterRemovedValue() {
+        var id = testEntityManager.persistAndFlush(buildNewHero()).getId();
+        testEntityManager.clear();
+        var hero = heroRepository.findById(id).orElseThrow();
+
+        var rowsBefore = rowCounter.rows();
+        hero.values(HeroProperty.ASSOCIATION).remove("space-stone");
+        testEntityManager.flush();
+
+        // the hero's version, the 4 values left moved up one position each and the last position deleted
+        assertThat(rowCounter.rows() - rowsBefore).isEqualTo(6);
+        testEntityManager.clear();
+        assertThat(heroRepository.findById(id).orElseThrow().getAssociations())
+            .containsExactly("skrulls", "photon", "kree", "avengers");
+    }
+
+    private Hero copyOf(Hero hero, long version, String alias) {
+        return Hero.builder()
+            .id(hero.getId())
+            .version(version)
+            .name(hero.getName())
+            .alias(alias)
+            .origin(hero.getOrigin())
+            .powers(hero.getPowers())
+            .build();
+    }
+
+    private int idOf(HeroProperty property, String value) {
+        return heroValueDictionary.find(property, value).orElseThrow();
+    }
+
+    private void assertIndexedPlan(Runnable query, Object... parameters) {
+        RecordingStatementInspector.clear();
+        query.run();
+
+        // the query itself and the subselects fetching the collections of its heroes
+        assertThat(RecordingStatementInspector.getStatements()).isNotEmpty().allSatisfy(sql -> {
+            var plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, parameters);
+
+            assertThat(plan)
+                .as("plan of %s", sql)
+                .doesNotContainIgnoringCase("tableScan");
+        });
+    }
+
     private Hero buildNewHero() {
         return Hero.builder()
             .name("Carol Danvers")
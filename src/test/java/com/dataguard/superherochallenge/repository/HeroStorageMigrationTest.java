@@ -0,0 +1,157 @@
+package com.dataguard.superherochallenge.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dataguard.superherochallenge.entity.HeroProperty;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// The structures of the previous layout are created by hand, as Hibernate's ddl-auto=update would leave them
+class HeroStorageMigrationTest {
+
+    private static final long HERO_ID = 1_000_000L;
+
+    @Nested
+    @DataJpaTest(properties = "hero.storage.layout=compact")
+    @Import({HeroValueDictionary.class, HeroStorageMigration.class})
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    class ToCompact {
+
+        @Autowired
+        HeroRepository heroRepository;
+
+        @Autowired
+        HeroValueDictionary heroValueDictionary;
+
+        @Autowired
+        HeroStorageMigration heroStorageMigration;
+
+        @Autowired
+        JdbcTemplate jdbcTemplate;
+
+        @AfterEach
+        public void cleanup() {
+            heroRepository.deleteAll();
+        }
+
+        @Test
+        @DisplayName("Should fold the collection rows of the heroes into their arrays")
+        void itShouldMigrateToCompact() {
+            insertHero(jdbcTemplate);
+            createCollectionTables();
+            var flight = heroValueDictionary.encode(HeroProperty.POWER, "flight");
+            var healing = heroValueDictionary.encode(HeroProperty.POWER, "healing");
+            var avengers = heroValueDictionary.encode(HeroProperty.ASSOCIATION, "avengers");
+            jdbcTemplate.update("INSERT INTO hero_powers VALUES (?, 1, NULL), (?, 0, ?), (?, 2, ?)",
+                HERO_ID, HERO_ID, flight, HERO_ID, healing);
+            jdbcTemplate.update("INSERT INTO hero_associations VALUES (?, 0, ?)", HERO_ID, avengers);
+
+            heroStorageMigration.migrate();
+            heroStorageMigration.migrate();
+
+            var hero = heroRepository.findById(HERO_ID).orElseThrow();
+            assertThat(hero.getPowers()).containsExactly("flight", null, "healing");
+            assertThat(hero.getWeapons()).isEmpty();
+            assertThat(hero.getAssociations()).containsExactly("avengers");
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES"
+                + " WHERE TABLE_NAME IN ('HERO_POWERS', 'HERO_WEAPONS', 'HERO_ASSOCIATIONS')", Integer.class)).isZero();
+        }
+
+        @Test
+        @DisplayName("Should copy nothing when the values of a hero don't fit its array column")
+        void itShouldNotMigrateArraysTooLong() {
+            insertHero(jdbcTemplate);
+            createCollectionTables();
+            var flight = heroValueDictionary.encode(HeroProperty.POWER, "flight");
+            // each id, and its comma, takes at least 2 characters
+            jdbcTemplate.batchUpdate("INSERT INTO hero_powers VALUES (?, ?, ?)", IntStream.range(0, 2000)
+                .mapToObj(position -> new Object[]{HERO_ID, position, flight})
+                .collect(Collectors.toList()));
+
+            Throwable exception = Assertions.catchThrowable(() -> heroStorageMigration.migrate());
+
+            assertThat(exception).isInstanceOf(IllegalStateException.class).hasMessageContaining("hero_powers");
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM hero_powers", Integer.class)).isEqualTo(2000);
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM hero WHERE powers IS NOT NULL",
+                Integer.class)).isZero();
+            for (String property : new String[]{"powers", "weapons", "associations"}) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS hero_" + property);
+            }
+        }
+
+        private void createCollectionTables() {
+            for (String property : new String[]{"power", "weapon", "association"}) {
+                jdbcTemplate.execute("CREATE TABLE hero_" + property + "s (hero_id BIGINT NOT NULL,"
+                    + " position INTEGER NOT NULL, " + property + "_id INTEGER, PRIMARY KEY (hero_id, position))");
+            }
+        }
+
+    }
+
+    @Nested
+    @DataJpaTest
+    @Import({HeroValueDictionary.class, HeroStorageMigration.class})
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    class ToCollections {
+
+        @Autowired
+        HeroRepository heroRepository;
+
+        @Autowired
+        HeroValueDictionary heroValueDictionary;
+
+        @Autowired
+        HeroStorageMigration heroStorageMigration;
+
+        @Autowired
+        JdbcTemplate jdbcTemplate;
+
+        @AfterEach
+        public void cleanup() {
+            heroRepository.deleteAll();
+        }
+
+        @Test
+        @DisplayName("Should split the arrays of the heroes into collection rows")
+        void itShouldMigrateToCollections() {
+            for (String property : new String[]{"powers", "weapons", "associations"}) {
+                jdbcTemplate.execute("ALTER TABLE hero ADD COLUMN " + property + " VARCHAR(4000)");
+            }
+            insertHero(jdbcTemplate);
+            var flight = heroValueDictionary.encode(HeroProperty.POWER, "flight");
+            var healing = heroValueDictionary.encode(HeroProperty.POWER, "healing");
+            var avengers = heroValueDictionary.encode(HeroProperty.ASSOCIATION, "avengers");
+            jdbcTemplate.update("UPDATE hero SET powers = ?, weapons = '[]', associations = ? WHERE id = ?",
+                "[" + flight + ",null," + healing + "]", "[" + avengers + "]", HERO_ID);
+
+            heroStorageMigration.migrate();
+            heroStorageMigration.migrate();
+
+            var hero = heroRepository.findById(HERO_ID).orElseThrow();
+            assertThat(hero.getPowers()).containsExactly("flight", null, "healing");
+            assertThat(hero.getWeapons()).isEmpty();
+            assertThat(hero.getAssociations()).containsExactly("avengers");
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS"
+                + " WHERE TABLE_NAME = 'HERO' AND COLUMN_NAME IN ('POWERS', 'WEAPONS', 'ASSOCIATIONS')", Integer.class))
+                .isZero();
+        }
+
+    }
+
+    private static void insertHero(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("INSERT INTO hero (id, alias, name, origin, version) VALUES (?, 'Thor Odinson', 'Thor',"
+            + " 'Asgard', 0)", HERO_ID);
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.dataguard.superherochallenge.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.entity.HeroProperty;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DataJpaTest
+@Import(HeroValueDictionary.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HeroValueDictionaryTest {
+
+    @Autowired
+    HeroRepository heroRepository;
+
+    @Autowired
+    HeroValueDictionary heroValueDictionary;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void cleanup() {
+        heroRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should store each value once and share its instance between heroes")
+    void itShouldStoreEachValueOnce() {
+        var first = heroRepository.save(buildHero("Iron Man", "flight"));
+        var second = heroRepository.save(buildHero("Thor", "flight"));
+
+        var firstPowers = heroRepository.findById(first.getId()).orElseThrow().getPowers();
+        var secondPowers = heroRepository.findById(second.getId()).orElseThrow().getPowers();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM hero_power_values WHERE power = 'flight'",
+            Integer.class)).isEqualTo(1);
+        assertThat(firstPowers[0]).isEqualTo("flight").isSameAs(secondPowers[0]);
+    }
+
+    @Test
+    @DisplayName("Should not add a value only looked up")
+    void itShouldNotAddLookedUpValue() {
+        assertThat(heroValueDictionary.find(HeroProperty.WEAPON, "never owned")).isEmpty();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM hero_weapon_values WHERE weapon = 'never owned'",
+            Integer.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep the id of a value")
+    void itShouldKeepIdOfValue() {
+        var id = heroValueDictionary.encode(HeroProperty.ASSOCIATION, "Avengers");
+
+        assertThat(heroValueDictionary.encode(HeroProperty.ASSOCIATION, "Avengers")).isEqualTo(id);
+        assertThat(heroValueDictionary.find(HeroProperty.ASSOCIATION, "Avengers")).contains(id);
+        assertThat(heroValueDictionary.decode(HeroProperty.ASSOCIATION, id)).isEqualTo("Avengers");
+    }
+
+    @Test
+    @DisplayName("Should add a value in the transaction of the hero, and forget it if that one rolls back")
+    void itShouldAddValueInTransactionOfHero() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            var id = heroValueDictionary.encode(HeroProperty.POWER, "time-travel");
+
+            assertThat(heroValueDictionary.decode(HeroProperty.POWER, id)).isEqualTo("time-travel");
+            status.setRollbackOnly();
+        });
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM hero_power_values WHERE power = 'time-travel'",
+            Integer.class)).isZero();
+        assertThat(heroValueDictionary.find(HeroProperty.POWER, "time-travel")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should remember a missing value until it is added")
+    void itShouldRememberMissingValue() {
+        assertThat(heroValueDictionary.find(HeroProperty.WEAPON, "mjolnir")).isEmpty();
+        // added by another instance
+        jdbcTemplate.update("INSERT INTO hero_weapon_values (id, weapon)"
+            + " VALUES (NEXT VALUE FOR hero_weapon_values_sequence, 'mjolnir')");
+        var id = jdbcTemplate.queryForObject("SELECT id FROM hero_weapon_values WHERE weapon = 'mjolnir'",
+            Integer.class);
+
+        assertThat(heroValueDictionary.find(HeroProperty.WEAPON, "mjolnir")).isEmpty();
+        assertThat(heroValueDictionary.encode(HeroProperty.WEAPON, "mjolnir")).isEqualTo(id);
+        assertThat(heroValueDictionary.find(HeroProperty.WEAPON, "mjolnir")).contains(id);
+    }
+
+    @Test
+    @DisplayName("Should find a value remembered as missing once its transaction adds it")
+    void itShouldFindMissingValueAddedInTransaction() {
+        assertThat(heroValueDictionary.find(HeroProperty.POWER, "phasing")).isEmpty();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            var id = heroValueDictionary.encode(HeroProperty.POWER, "phasing");
+
+            assertThat(heroValueDictionary.find(HeroProperty.POWER, "phasing")).contains(id);
+            status.setRollbackOnly();
+        });
+    }
+
+    @Test
+    @DisplayName("Should read a value committed elsewhere with an id lower than the ones already known")
+    void itShouldReadValueWithLowerIdCommittedLater() {
+        // another instance took 1000 from the sequence first, but committed after this one read 2000
+        jdbcTemplate.update("INSERT INTO hero_power_values (id, power) VALUES (2000, 'later')");
+        assertThat(heroValueDictionary.decode(HeroProperty.POWER, 2000)).isEqualTo("later");
+        assertThat(heroValueDictionary.find(HeroProperty.POWER, "earlier")).isEmpty();
+        jdbcTemplate.update("INSERT INTO hero_power_values (id, power) VALUES (1000, 'earlier')");
+
+        assertThat(heroValueDictionary.decode(HeroProperty.POWER, 1000)).isEqualTo("earlier");
+        assertThat(heroValueDictionary.find(HeroProperty.POWER, "earlier")).contains(1000);
+        assertThat(heroValueDictionary.encode(HeroProperty.POWER, "earlier")).isEqualTo(1000);
+    }
+
+    private static Hero buildHero(String name, String power) {
+        return Hero.builder()
+            .name(name)
+            .alias(name)
+            .origin("Earth")
+            .powers(new String[]{power})
+            .build();
+    }
+
+}
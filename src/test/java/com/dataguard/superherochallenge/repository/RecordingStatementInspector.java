@@ -0,0 +1,26 @@
+package com.dataguard.superherochallenge.repository;
+
+import com.dataguard.superherochallenge.metrics.StatementCounter;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Keeps the SQL of every statement Hibernate prepares, so tests can look at what was really executed
+public class RecordingStatementInspector extends StatementCounter {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return super.inspect(sql);
+    }
+
+    public static List<String> getStatements() {
+        return List.copyOf(STATEMENTS);
+    }
+
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.dataguard.superherochallenge.repository;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+// Wraps the DataSource so every statement reports the rows it wrote: executeUpdate returns them, and
+// executeBatch returns them for each row of the batch, which a count of prepared statements can't see
+public final class RowCounter implements BeanPostProcessor {
+
+    private final AtomicLong rows = new AtomicLong();
+
+    public long rows() {
+        return rows.get();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        return bean instanceof DataSource ? proxy(DataSource.class, bean) : bean;
+    }
+
+    private Object proxy(Class<?> type, Object target) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            if (result instanceof Connection) {
+                return proxy(Connection.class, result);
+            }
+            if (result instanceof PreparedStatement) {
+                return proxy(PreparedStatement.class, result);
+            }
+            if (result instanceof Statement) {
+                return proxy(Statement.class, result);
+            }
+            if ("executeUpdate".equals(method.getName())) {
+                rows.addAndGet((Integer) result);
+            } else if ("executeBatch".equals(method.getName())) {
+                for (int updated : (int[]) result) {
+                    rows.addAndGet(Math.max(updated, 0));
+                }
+            }
+            return result;
+        });
+    }
+
+}
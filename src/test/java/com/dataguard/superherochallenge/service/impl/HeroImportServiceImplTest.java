@@ -0,0 +1,157 @@
+package com.dataguard.superherochallenge.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.dataguard.superherochallenge.adapter.HeroAdapter;
+import com.dataguard.superherochallenge.cache.HeroNameCache;
+import com.dataguard.superherochallenge.cache.HeroResponseCache;
+import com.dataguard.superherochallenge.entity.HeroProperty;
+import com.dataguard.superherochallenge.index.HeroNameFilter;
+import com.dataguard.superherochallenge.index.HeroPropertyIndex;
+import com.dataguard.superherochallenge.repository.HeroRepository;
+import com.dataguard.superherochallenge.repository.HeroValueDictionary;
+import com.dataguard.superherochallenge.service.HeroImportService;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest(properties = "hero.bulk.batch-size=3")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Import({HeroImportServiceImpl.class, HeroAdapter.class, HeroPropertyIndex.class, HeroNameFilter.class,
+    HeroNameCache.class, HeroResponseCache.class, HeroValueDictionary.class})
+class HeroImportServiceImplTest {
+
+    @Autowired
+    HeroImportService heroImportService;
+
+    @Autowired
+    HeroRepository heroRepository;
+
+    @Autowired
+    HeroPropertyIndex heroPropertyIndex;
+
+    @SpyBean
+    HeroResponseCache heroResponseCache;
+
+    @SpyBean
+    HeroNameFilter heroNameFilter;
+
+    @AfterEach
+    public void cleanup() {
+        heroRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should import every valid hero in batches")
+    void itShouldImportHeroesInBatches() {
+        var ndjson = IntStream.range(0, 10)
+            .mapToObj(i -> buildHeroLine("Hero " + i))
+            .collect(Collectors.joining("\n"));
+
+        var result = heroImportService.importHeroes(toStream(ndjson));
+
+        assertThat(result.getImported()).isEqualTo(10);
+        assertThat(result.getFailed()).isZero();
+        assertThat(result.getErrors()).isEmpty();
+        assertThat(heroRepository.count()).isEqualTo(10);
+        assertThat(heroRepository.findByName("Hero 7")).isPresent()
+            .hasValueSatisfying(hero -> assertThat(hero.getPowers()).containsExactly("flight", "healing"));
+        assertThat(heroPropertyIndex.find(HeroProperty.POWER, "healing")).hasSize(10);
+        // once per chunk of 3
+        verify(heroResponseCache, times(4)).invalidate();
+    }
+
+    @Test
+    @DisplayName("Should report invalid, repeated and existing heroes with their line")
+    void itShouldReportRejectedRows() {
+        heroImportService.importHeroes(toStream(buildHeroLine("Tony Stark")));
+
+        var ndjson = String.join("\n",
+            buildHeroLine("Carol Danvers"),
+            "{\"name\": \"Peter Parker\"}",
+            "",
+            "not a hero",
+            buildHeroLine("Tony Stark"),
+            buildHeroLine("Carol Danvers"),
+            buildHeroLine("Bruce Banner"));
+
+        var result = heroImportService.importHeroes(toStream(ndjson));
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(4);
+        assertThat(result.getErrors())
+            .extracting("line")
+            .containsExactlyInAnyOrder(2L, 4L, 5L, 6L);
+        assertThat(result.getErrors())
+            .filteredOn("line", 2L)
+            .extracting("message")
+            .containsExactly("Alias cannot be empty or null, Origin cannot be empty or null");
+        assertThat(result.getErrors())
+            .filteredOn("line", 5L)
+            .extracting("message")
+            .containsExactly("Hero already exists");
+        assertThat(heroRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should report a name taken by a concurrent insert as a conflict")
+    void itShouldReportNameTakenConcurrentlyAsConflict() {
+        heroImportService.importHeroes(toStream(buildHeroLine("Tony Stark")));
+        // as if it was saved after the names of the chunk were checked
+        doReturn(false).when(heroNameFilter).mightContain("Tony Stark");
+
+        var result = heroImportService.importHeroes(toStream(String.join("\n",
+            buildHeroLine("Carol Danvers"),
+            buildHeroLine("Tony Stark"))));
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting("line", "message").containsExactly(tuple(2L, "Hero already exists"));
+    }
+
+    @Test
+    @DisplayName("Should report a row failing for another reason than its name with its cause")
+    void itShouldReportOtherFailuresWithTheirCause() {
+        var ndjson = String.join("\n",
+            buildHeroLine("Carol Danvers"),
+            buildHeroLine("Tony Stark").replace("\"Origin\"", "\"" + "Origin".repeat(50) + "\""),
+            buildHeroLine("Bruce Banner"));
+
+        var result = heroImportService.importHeroes(toStream(ndjson));
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getLine()).isEqualTo(2L);
+            assertThat(error.getMessage()).isNotEqualTo("Hero already exists").containsIgnoringCase("origin");
+        });
+        assertThat(heroRepository.count()).isEqualTo(2);
+    }
+
+    private String buildHeroLine(String name) {
+        return "{\"name\": \"" + name + "\", \"alias\": \"Alias\", \"origin\": \"Origin\", "
+            + "\"powers\": [\"flight\", \"healing\"], \"weapons\": [], \"associations\": [\"avengers\"]}";
+    }
+
+    private ByteArrayInputStream toStream(String ndjson) {
+        return new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
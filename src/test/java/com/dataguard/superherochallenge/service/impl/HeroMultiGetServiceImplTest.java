@@ -0,0 +1,122 @@
+package com.dataguard.superherochallenge.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dataguard.superherochallenge.adapter.HeroAdapter;
+import com.dataguard.superherochallenge.dto.HeroMultiGetDto;
+import com.dataguard.superherochallenge.dto.HeroMultiGetItemDto;
+import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.index.HeroNameFilter;
+import com.dataguard.superherochallenge.repository.HeroRepository;
+import com.dataguard.superherochallenge.repository.HeroValueDictionary;
+import com.dataguard.superherochallenge.service.HeroMultiGetService;
+import com.dataguard.superherochallenge.service.exception.BadRequestException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest(properties = "hero.multi-get.max-keys=5")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({HeroMultiGetServiceImpl.class, HeroAdapter.class, HeroNameFilter.class, HeroValueDictionary.class})
+class HeroMultiGetServiceImplTest {
+
+    @Autowired
+    HeroMultiGetService heroMultiGetService;
+
+    @Autowired
+    HeroRepository heroRepository;
+
+    @Autowired
+    HeroNameFilter heroNameFilter;
+
+    List<Hero> heroes;
+
+    @BeforeEach
+    public void setup() {
+        heroes = heroRepository.saveAll(IntStream.range(0, 3)
+            .mapToObj(i -> Hero.builder()
+                .name("Hero " + i)
+                .alias("Alias " + i)
+                .origin("Origin " + i)
+                .powers(new String[]{"flight", "power-" + i})
+                .weapons(new String[0])
+                .associations(new String[]{"avengers"})
+                .build())
+            .collect(Collectors.toList()));
+        heroNameFilter.build();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        heroRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should find heroes by name in the order requested, reporting misses inline")
+    void itShouldFindHeroesByName() {
+        var result = heroMultiGetService.findHeroes(HeroMultiGetDto.builder()
+            .names(Arrays.asList("Hero 2", "Nobody", "Hero 0", "Hero 2"))
+            .build());
+
+        assertThat(result).extracting(HeroMultiGetItemDto::getName)
+            .containsExactly("Hero 2", "Nobody", "Hero 0", "Hero 2");
+        assertThat(result).extracting(HeroMultiGetItemDto::isFound).containsExactly(true, false, true, true);
+        assertThat(result.get(0).getHero().getPowers()).containsExactly("flight", "power-2");
+        assertThat(result.get(1).getHero()).isNull();
+        assertThat(result.get(2).getHero().getAlias()).isEqualTo("Alias 0");
+    }
+
+    @Test
+    @DisplayName("Should find heroes by id in the order requested, reporting misses inline")
+    void itShouldFindHeroesById() {
+        var missing = heroes.get(2).getId() + 1000;
+
+        var result = heroMultiGetService.findHeroes(HeroMultiGetDto.builder()
+            .ids(Arrays.asList(heroes.get(1).getId(), missing, heroes.get(0).getId()))
+            .build());
+
+        assertThat(result).extracting(HeroMultiGetItemDto::getId)
+            .containsExactly(heroes.get(1).getId(), missing, heroes.get(0).getId());
+        assertThat(result).extracting(HeroMultiGetItemDto::isFound).containsExactly(true, false, true);
+        assertThat(result.get(0).getHero().getName()).isEqualTo("Hero 1");
+    }
+
+    @Test
+    @DisplayName("Should refuse more keys than configured")
+    void itShouldRefuseTooManyKeys() {
+        var request = HeroMultiGetDto.builder()
+            .names(Collections.nCopies(6, "Hero 0"))
+            .build();
+
+        Throwable exception = Assertions.catchThrowable(() -> heroMultiGetService.findHeroes(request));
+
+        assertThat(exception)
+            .isInstanceOf(BadRequestException.class)
+            .hasMessage("At most 5 names or ids can be requested at once");
+    }
+
+    @Test
+    @DisplayName("Should refuse a request with both names and ids, or neither")
+    void itShouldRequireEitherNamesOrIds() {
+        var both = HeroMultiGetDto.builder().names(List.of("Hero 0")).ids(List.of(1L)).build();
+
+        assertThat(Assertions.catchThrowable(() -> heroMultiGetService.findHeroes(both)))
+            .isInstanceOf(BadRequestException.class)
+            .hasMessage("Send either the names or the ids of the heroes");
+        assertThat(Assertions.catchThrowable(() -> heroMultiGetService.findHeroes(null)))
+            .isInstanceOf(BadRequestException.class);
+    }
+
+}
@@ -0,0 +1,177 @@
+package com.dataguard.superherochallenge.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dataguard.superherochallenge.adapter.HeroAdapter;
+import com.dataguard.superherochallenge.cache.HeroNameCache;
+import com.dataguard.superherochallenge.cache.HeroResponseCache;
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.dto.HeroPatchDto;
+import com.dataguard.superherochallenge.dto.HeroValuesPatchDto;
+import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.entity.HeroProperty;
+import com.dataguard.superherochallenge.entity.HeroValueArrayConverter;
+import com.dataguard.superherochallenge.index.HeroNameFilter;
+import com.dataguard.superherochallenge.index.HeroPropertyIndex;
+import com.dataguard.superherochallenge.metrics.StatementCounter;
+import com.dataguard.superherochallenge.repository.HeroRepository;
+import com.dataguard.superherochallenge.repository.HeroValueDictionary;
+import com.dataguard.superherochallenge.service.HeroService;
+import com.dataguard.superherochallenge.service.exception.BadRequestException;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@DataJpaTest(properties = "hero.storage.layout=compact")
+@Import({HeroServiceImpl.class, HeroAdapter.class, HeroPropertyIndex.class, HeroNameFilter.class,
+    HeroNameCache.class, HeroResponseCache.class, HeroValueDictionary.class})
+class HeroServiceCompactLayoutTest {
+
+    @Autowired
+    HeroService heroService;
+
+    @Autowired
+    HeroRepository heroRepository;
+
+    @Autowired
+    TestEntityManager testEntityManager;
+
+    @Autowired
+    HeroPropertyIndex heroPropertyIndex;
+
+    @Autowired
+    HeroNameFilter heroNameFilter;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should store the values of a hero on its own row")
+    void itShouldStoreValuesOnHeroRow() {
+        heroService.addNewHero(HeroDto.builder()
+            .name("Captain Marvel")
+            .alias("Carol Danvers")
+            .origin("Air Force pilot")
+            .powers(new String[]{"flight", "photon blast"})
+            .weapons(new String[]{})
+            .associations(new String[]{"avengers"})
+            .build());
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        var row = jdbcTemplate.queryForMap("SELECT powers, weapons, associations FROM hero WHERE name = 'Captain Marvel'");
+        var hero = heroService.findHeroByName("Captain Marvel").orElseThrow();
+
+        assertThat((String) row.get("powers")).matches("\\[\\d+,\\d+]");
+        assertThat(row.get("weapons")).isEqualTo("[]");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES"
+            + " WHERE TABLE_NAME = 'HERO_POWERS'", Integer.class)).isZero();
+        assertThat(hero.getPowers()).containsExactly("flight", "photon blast");
+        assertThat(hero.getWeapons()).isEmpty();
+        assertThat(hero.getAssociations()).containsExactly("avengers");
+    }
+
+    @Test
+    @DisplayName("Should find heroes by property in the database without matching other ids")
+    void itShouldFindHeroesByPropertyInDatabase() {
+        // enough values for dictionary ids of one and two digits, like 3 and 13
+        var ids = seed(12);
+
+        assertThat(heroRepository.findByProperty(HeroProperty.POWER, "power-1"))
+            .extracting(Hero::getId)
+            .containsExactly(ids.get(1));
+        assertThat(heroRepository.findByProperty(HeroProperty.WEAPON, "weapon-11"))
+            .extracting(Hero::getId)
+            .containsExactly(ids.get(11));
+        assertThat(heroRepository.findByProperty(HeroProperty.ASSOCIATION, "avengers")).hasSize(12);
+        assertThat(heroRepository.findIdsByPropertyAfter(HeroProperty.POWER, "flight", ids.get(9), 5))
+            .containsExactly(ids.get(10), ids.get(11));
+        assertThat(heroRepository.findHeroesVersionByProperty(HeroProperty.POWER, "power-11").getHeroes())
+            .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should refuse more values than fit the column of the hero row")
+    void itShouldRefuseValuesNotFittingColumn() {
+        var id = seed(1).get(0);
+        var powers = IntStream.range(0, HeroValueArrayConverter.MAXIMUM_LENGTH / 2)
+            .mapToObj(i -> "many-" + i)
+            .toArray(String[]::new);
+
+        Throwable exception = Assertions.catchThrowable(() -> heroService.patchHero(id, HeroPatchDto.builder()
+            .powers(HeroValuesPatchDto.builder().add(powers).build())
+            .build(), null));
+
+        assertThat(exception)
+            .isInstanceOf(BadRequestException.class)
+            .hasMessageStartingWith("Too many powers");
+    }
+
+    @Test
+    @DisplayName("Should read and write a hero with a single statement")
+    void itShouldReadAndWriteHeroWithSingleStatement() {
+        // within the first block of hero_sequence, so the insert doesn't read the sequence
+        var ids = seed(40);
+
+        assertStatements(1, () -> heroService.addNewHero(HeroDto.builder()
+            .name("New hero")
+            .alias("Alias")
+            .origin("Origin")
+            .powers(new String[]{"flight"})
+            .weapons(new String[]{"shield"})
+            .associations(new String[]{"avengers"})
+            .build()));
+        assertStatements(1, () -> heroService.findHeroById(ids.get(0)));
+        assertStatements(1, () -> heroService.findHeroesByProperty("power", "flight"));
+        // loading the hero, then updating its row
+        assertStatements(2, () -> heroService.patchHero(ids.get(0), HeroPatchDto.builder()
+            .powers(HeroValuesPatchDto.builder().add(new String[]{"healing"}).build())
+            .build(), null));
+        assertStatements(1, () -> heroService.deleteHeroes(ids.subList(1, ids.size())));
+
+        assertThat(heroService.findHeroesByProperty("power", "healing")).extracting(HeroDto::getId)
+            .containsExactly(ids.get(0));
+        assertThat(heroRepository.findById(ids.get(0)).orElseThrow().getPowers())
+            .containsExactly("flight", "power-0", "healing");
+        assertThat(heroRepository.count()).isEqualTo(2);
+    }
+
+    private void assertStatements(long expected, Runnable action) {
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        var statements = StatementCounter.count(() -> {
+            action.run();
+            testEntityManager.flush();
+        });
+
+        assertThat(statements).isEqualTo(expected);
+    }
+
+    private List<Long> seed(int heroes) {
+        var saved = heroRepository.saveAll(IntStream.range(0, heroes)
+            .mapToObj(i -> Hero.builder()
+                .name("hero-" + i)
+                .alias("Alias " + i)
+                .origin("Origin " + i)
+                .powers(new String[]{"flight", "power-" + i})
+                .weapons(new String[]{"weapon-" + i})
+                .associations(new String[]{"avengers"})
+                .build())
+            .collect(Collectors.toList()));
+        testEntityManager.flush();
+        testEntityManager.clear();
+        heroPropertyIndex.build();
+        heroNameFilter.build();
+        return saved.stream().map(Hero::getId).collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.dataguard.superherochallenge.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.dto.HeroPatchDto;
+import com.dataguard.superherochallenge.dto.HeroValuesPatchDto;
+import com.dataguard.superherochallenge.service.HeroImportService;
+import com.dataguard.superherochallenge.service.HeroService;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+// With a single connection in the pool, any write asking for a second one would wait for the timeout and fail
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:single-connection",
+    "hero.datasource.maximum-pool-size=1",
+    "spring.datasource.hikari.connection-timeout=1000"
+})
+class HeroServiceConnectionTest {
+
+    @Autowired
+    HeroService heroService;
+
+    @Autowired
+    HeroImportService heroImportService;
+
+    @Test
+    @DisplayName("Should add new values to the dictionary on the connection of the hero's transaction")
+    void itShouldAddValuesOnTheHeroConnection() {
+        var hero = heroService.addNewHero(HeroDto.builder()
+            .name("Jean Grey")
+            .alias("Phoenix")
+            .origin("Mutant")
+            .powers(new String[]{"telepathy", "telekinesis"})
+            .weapons(new String[0])
+            .associations(new String[]{"x-men"})
+            .build());
+        heroService.patchHero(hero.getId(), HeroPatchDto.builder()
+            .powers(HeroValuesPatchDto.builder().add(new String[]{"phoenix-force"}).build())
+            .build(), null);
+        var result = heroImportService.importHeroes(new ByteArrayInputStream(("{\"name\": \"Scott Summers\","
+            + " \"alias\": \"Cyclops\", \"origin\": \"Mutant\", \"powers\": [\"optic-blast\"], \"weapons\": [\"visor\"],"
+            + " \"associations\": [\"x-men\"]}").getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(heroService.findHeroesByProperty("power", "phoenix-force"))
+            .extracting(HeroDto::getName)
+            .containsExactly("Jean Grey");
+        assertThat(heroService.findHeroesByProperty("weapon", "visor"))
+            .extracting(HeroDto::getName)
+            .containsExactly("Scott Summers");
+    }
+
+}
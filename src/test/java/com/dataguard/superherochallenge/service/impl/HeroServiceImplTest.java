@@ -5,16 +5,32 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.dataguard.superherochallenge.adapter.HeroAdapter;
+import com.dataguard.superherochallenge.cache.HeroNameCache;
+import com.dataguard.superherochallenge.cache.HeroResponseCache;
 import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.dto.HeroPatchDto;
 import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.entity.HeroProperty;
+import com.dataguard.superherochallenge.index.HeroNameFilter;
+import com.dataguard.superherochallenge.index.HeroPropertyIndex;
+import com.dataguard.superherochallenge.index.HeroQuery;
 import com.dataguard.superherochallenge.repository.HeroRepository;
+import com.dataguard.superherochallenge.repository.HeroValueDictionary;
 import com.dataguard.superherochallenge.service.HeroService;
 import com.dataguard.superherochallenge.service.exception.BadRequestException;
 import com.dataguard.superherochallenge.service.exception.ConflictException;
 import com.dataguard.superherochallenge.service.exception.ObjectNotFoundException;
+import com.dataguard.superherochallenge.service.exception.PreconditionFailedException;
+import com.dataguard.superherochallenge.util.CursorUtil;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import javax.persistence.EntityManager;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -22,7 +38,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @ExtendWith(SpringExtension.class)
 class HeroServiceImplTest {
@@ -35,9 +56,30 @@ class HeroServiceImplTest {
     @MockBean
     HeroAdapter heroAdapter;
 
+    @MockBean
+    EntityManager entityManager;
+
+    @MockBean
+    HeroPropertyIndex heroPropertyIndex;
+
+    @MockBean
+    HeroNameFilter heroNameFilter;
+
+    @MockBean
+    HeroResponseCache heroResponseCache;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    @MockBean
+    HeroValueDictionary heroValueDictionary;
+
     @BeforeEach
     public void setup() {
-        this.heroService = new HeroServiceImpl(heroRepository, heroAdapter);
+        this.heroService = new HeroServiceImpl(heroRepository, heroAdapter, entityManager, heroPropertyIndex,
+            heroNameFilter, new HeroNameCache(100, Duration.ofMinutes(5)), heroResponseCache,
+            new TransactionTemplate(transactionManager), heroValueDictionary);
+        when(heroValueDictionary.find(Mockito.any(), Mockito.anyString())).thenReturn(Optional.of(1));
     }
 
     @Test
@@ -52,6 +94,8 @@ class HeroServiceImplTest {
 
         var hero = heroService.addNewHero(newHeroDto);
 
+        verify(heroPropertyIndex).add(heroSaved);
+        verify(heroResponseCache).invalidate();
         assertThat(hero).isNotNull();
         assertThat(hero.getName()).isEqualTo("Carol Danvers");
         assertThat(hero.getAlias()).isEqualTo("Captain Marvel");
@@ -82,6 +126,7 @@ class HeroServiceImplTest {
         var heroSaved = buildHero(1L);
 
         buildHeroToAdapter();
+        when(heroNameFilter.mightContain(Mockito.anyString())).thenReturn(true);
         when(heroRepository.findByName(Mockito.anyString())).thenReturn(Optional.of(heroSaved));
 
         Throwable exception = Assertions.catchThrowable(() -> heroService.addNewHero(newHeroDto));
@@ -91,6 +136,35 @@ class HeroServiceImplTest {
             .hasMessage("Hero already exists");
     }
 
+    @Test
+    @DisplayName("Should skip the duplicate check when the name filter never saw the name")
+    void itShouldSkipDuplicateCheckWhenNameIsNew() {
+        var heroSaved = buildHero(1L);
+
+        buildHeroToAdapter();
+        when(heroNameFilter.mightContain(Mockito.anyString())).thenReturn(false);
+        when(heroRepository.save(Mockito.any(Hero.class))).thenReturn(heroSaved);
+
+        heroService.addNewHero(buildHeroDto());
+
+        verify(heroRepository, Mockito.never()).findByName(Mockito.anyString());
+        verify(heroNameFilter).add("Carol Danvers");
+    }
+
+    @Test
+    @DisplayName("Should throw conflict exception when the unique name constraint is violated")
+    void itShouldThrowConflictExceptionWhenUniqueNameIsViolated() {
+        buildHeroToAdapter();
+        when(heroRepository.save(Mockito.any(Hero.class)))
+            .thenThrow(new DataIntegrityViolationException("uk_hero_name"));
+
+        Throwable exception = Assertions.catchThrowable(() -> heroService.addNewHero(buildHeroDto()));
+
+        assertThat(exception)
+            .isInstanceOf(ConflictException.class)
+            .hasMessage("Hero already exists");
+    }
+
     @Test
     @DisplayName("Should list all heroes")
     void itShouldListAllHeroes() {
@@ -108,6 +182,66 @@ class HeroServiceImplTest {
             .hasSize(2);
     }
 
+    @Test
+    @DisplayName("Should return a page of heroes and the cursor of the next one")
+    void itShouldReturnPageOfHeroesWithNextCursor() {
+        var heroes = Arrays.asList(buildHero(2L), buildHero(3L));
+
+        buildHeroToAdapter();
+        when(heroRepository.findIdsAfter(1L, PageRequest.of(0, 3))).thenReturn(Arrays.asList(2L, 3L, 4L));
+        when(heroRepository.findByIdInOrderById(Arrays.asList(2L, 3L))).thenReturn(heroes);
+
+        var page = heroService.findHeroesPage(CursorUtil.encode(1L), 2);
+
+        assertThat(page.getHeroes()).hasSize(2);
+        assertThat(CursorUtil.decode(page.getNextCursor())).isEqualTo(3L);
+    }
+
+    @Test
+    @DisplayName("Should return the last page of heroes without a next cursor")
+    void itShouldReturnLastPageOfHeroesWithoutNextCursor() {
+        buildHeroToAdapter();
+        when(heroRepository.findIdsByPropertyAfter(HeroProperty.POWER, "flight", 0L, 3))
+            .thenReturn(Arrays.asList(1L, 2L));
+        when(heroRepository.findByIdInOrderById(Arrays.asList(1L, 2L)))
+            .thenReturn(Arrays.asList(buildHero(1L), buildHero(2L)));
+
+        var page = heroService.findHeroesByPropertyPage("power", "flight", null, 2);
+
+        assertThat(page.getHeroes()).hasSize(2);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should throw BadRequestException when the cursor is invalid")
+    void itShouldThrowBadRequestExceptionWhenCursorIsInvalid() {
+        Throwable exception = Assertions.catchThrowable(() -> heroService.findHeroesPage("not-a-cursor", 2));
+
+        assertThat(exception)
+            .isInstanceOf(BadRequestException.class)
+            .hasMessage("Invalid cursor");
+    }
+
+    @Test
+    @DisplayName("Should stream all heroes chunk by chunk, writing each chunk after its transaction")
+    void itShouldStreamAllHeroes() {
+        var streamed = new ArrayList<HeroDto>();
+
+        when(heroAdapter.adapterHeroToHeroDto(Mockito.any(Hero.class)))
+            .thenAnswer(invocation -> HeroDto.builder().id(invocation.<Hero>getArgument(0).getId()).build());
+        when(heroRepository.findIdsAfter(0L, PageRequest.of(0, 500))).thenReturn(Arrays.asList(1L, 2L));
+        when(heroRepository.findByIdInOrderById(Arrays.asList(1L, 2L)))
+            .thenReturn(Arrays.asList(buildHero(1L), buildHero(2L)));
+
+        heroService.streamAllHeroes(heroDto -> {
+            verify(transactionManager).commit(Mockito.any());
+            streamed.add(heroDto);
+        });
+
+        assertThat(streamed).extracting(HeroDto::getId).containsExactly(1L, 2L);
+        verify(entityManager).clear();
+    }
+
     @Test
     @DisplayName("Should get all heroes by property 'power' and value 'flight'")
     void itShouldGetAllHeroesWithPowerProperty() {
@@ -118,7 +252,7 @@ class HeroServiceImplTest {
         var propertyValue = "flight";
 
         buildHeroToAdapter();
-        when(heroRepository.findByPower(propertyValue)).thenReturn(heroes);
+        when(heroRepository.findByProperty(HeroProperty.POWER, propertyValue)).thenReturn(heroes);
 
         var heroesPowerFlight = heroService.findHeroesByProperty("power", propertyValue);
 
@@ -135,12 +269,101 @@ class HeroServiceImplTest {
         assertThat(heroesPowerFlight).hasSize(2);
     }
 
+    @Test
+    @DisplayName("Should get heroes by property through the index when it is ready")
+    void itShouldGetHeroesByPropertyThroughIndex() {
+        var ids = Arrays.asList(1L, 2L);
+
+        buildHeroToAdapter();
+        when(heroPropertyIndex.isReady()).thenReturn(true);
+        when(heroPropertyIndex.find(HeroProperty.WEAPON, "arc-reactor")).thenReturn(ids);
+        when(heroRepository.findByIdInOrderById(Arrays.asList(1L, 2L)))
+            .thenReturn(Arrays.asList(buildHero(1L), buildHero(2L)));
+
+        var heroes = heroService.findHeroesByProperty("weapon", "arc-reactor");
+
+        assertThat(heroes).hasSize(2);
+        verify(heroRepository, Mockito.never()).findByProperty(Mockito.eq(HeroProperty.WEAPON), Mockito.anyString());
+    }
+
+    @Test
+    @DisplayName("Should not query the heroes when the index has no hero with the value")
+    void itShouldNotQueryHeroesWhenIndexHasNoMatch() {
+        when(heroPropertyIndex.isReady()).thenReturn(true);
+        when(heroPropertyIndex.find(HeroProperty.POWER, "invisibility")).thenReturn(List.of());
+
+        var heroes = heroService.findHeroesByProperty("power", "invisibility");
+
+        assertThat(heroes).isEmpty();
+        verify(heroRepository, Mockito.never()).findByIdInOrderById(Mockito.anyCollection());
+    }
+
+    @Test
+    @DisplayName("Should get heroes matching a compound query")
+    void itShouldGetHeroesMatchingCompoundQuery() {
+        buildHeroToAdapter();
+        when(heroPropertyIndex.isReady()).thenReturn(true);
+        when(heroPropertyIndex.find(Mockito.any(HeroQuery.class))).thenReturn(Arrays.asList(1L, 2L));
+        when(heroRepository.findByIdInOrderById(Arrays.asList(1L, 2L)))
+            .thenReturn(Arrays.asList(buildHero(1L), buildHero(2L)));
+
+        var heroes = heroService.findHeroesByQuery("power=flight AND association=avengers");
+
+        assertThat(heroes).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should evaluate a compound query in the database until the index is built")
+    void itShouldGetHeroesMatchingCompoundQueryFromDatabase() {
+        buildHeroToAdapter();
+        when(heroRepository.findIdsByPropertyAfter(HeroProperty.POWER, "flight", 0L, Integer.MAX_VALUE))
+            .thenReturn(Arrays.asList(1L, 2L, 3L));
+        when(heroRepository.findIdsByPropertyAfter(HeroProperty.ASSOCIATION, "avengers", 0L, Integer.MAX_VALUE))
+            .thenReturn(Arrays.asList(2L, 3L));
+        when(heroRepository.findIdsByPropertyAfter(HeroProperty.WEAPON, "shield", 0L, Integer.MAX_VALUE))
+            .thenReturn(Arrays.asList(5L));
+        when(heroRepository.findByIdInOrderById(Arrays.asList(2L, 3L, 5L)))
+            .thenReturn(Arrays.asList(buildHero(2L), buildHero(3L), buildHero(5L)));
+
+        var heroes = heroService.findHeroesByQuery("power=flight AND association=avengers OR weapon=shield");
+
+        assertThat(heroes).hasSize(3);
+        verify(heroPropertyIndex, Mockito.never()).find(Mockito.any(HeroQuery.class));
+    }
+
+    @Test
+    @DisplayName("Should return the page of a compound query after the cursor")
+    void itShouldReturnPageOfCompoundQueryAfterCursor() {
+        buildHeroToAdapter();
+        when(heroPropertyIndex.isReady()).thenReturn(true);
+        when(heroPropertyIndex.find(Mockito.any(HeroQuery.class))).thenReturn(Arrays.asList(1L, 3L, 5L, 7L));
+        when(heroRepository.findByIdInOrderById(Arrays.asList(5L, 7L)))
+            .thenReturn(Arrays.asList(buildHero(5L), buildHero(7L)));
+
+        var page = heroService.findHeroesByQueryPage("power=flight", CursorUtil.encode(4L), 2);
+
+        assertThat(page.getHeroes()).hasSize(2);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should throw BadRequestException when a query term has an unknown property")
+    void itShouldThrowBadRequestExceptionWhenQueryPropertyIsUnknown() {
+        Throwable exception =
+            Assertions.catchThrowable(() -> heroService.findHeroesByQuery("power=flight AND car=ferrari"));
+
+        assertThat(exception)
+            .isInstanceOf(BadRequestException.class)
+            .hasMessage("The property informed doesn't exist: try power, weapon or association");
+    }
+
     @Test
     @DisplayName("Should find a hero by name")
     void itShouldFindAHeroByName() {
         var heroSaved = buildHero(1L);
 
         buildHeroToAdapter();
+        when(heroNameFilter.mightContain(Mockito.anyString())).thenReturn(true);
         when(heroRepository.findByName(Mockito.anyString())).thenReturn(Optional.of(heroSaved));
 
         var hero = heroService.findHeroByName("Carol Danvers");
@@ -155,6 +378,71 @@ class HeroServiceImplTest {
         assertThat(hero.get().getAssociations()).hasSize(5);
     }
 
+    @Test
+    @DisplayName("Should serve repeated name misses from the cache without a stack trace")
+    void itShouldCacheHeroNameMisses() {
+        when(heroNameFilter.mightContain(Mockito.anyString())).thenReturn(true);
+        when(heroRepository.findByName(Mockito.anyString())).thenReturn(Optional.empty());
+
+        Throwable first = Assertions.catchThrowable(() -> heroService.findHeroByName("Nobody"));
+        Throwable second = Assertions.catchThrowable(() -> heroService.findHeroByName("Nobody"));
+
+        assertThat(first).isInstanceOf(ObjectNotFoundException.class).hasMessage("Hero by name not found");
+        assertThat(second).isInstanceOf(ObjectNotFoundException.class);
+        assertThat(second.getStackTrace()).isEmpty();
+        verify(heroRepository, Mockito.times(1)).findByName("Nobody");
+    }
+
+    @Test
+    @DisplayName("Should not query the database for names the filter never saw")
+    void itShouldNotQueryDatabaseForUnknownNames() {
+        when(heroNameFilter.mightContain(Mockito.anyString())).thenReturn(false);
+
+        Throwable exception = Assertions.catchThrowable(() -> heroService.findHeroByName("Nobody"));
+
+        assertThat(exception).isInstanceOf(ObjectNotFoundException.class);
+        verify(heroRepository, Mockito.never()).findByName(Mockito.anyString());
+    }
+
+    @Test
+    @DisplayName("Should not cache as missing the names the filter never saw")
+    void itShouldNotCacheNamesRejectedByFilter() {
+        var heroSaved = buildHero(1L);
+
+        buildHeroToAdapter();
+        when(heroNameFilter.mightContain(Mockito.anyString())).thenReturn(false);
+        Assertions.catchThrowable(() -> heroService.findHeroByName("Carol Danvers"));
+        when(heroNameFilter.mightContain(Mockito.anyString())).thenReturn(true);
+        when(heroRepository.findByName(Mockito.anyString())).thenReturn(Optional.of(heroSaved));
+
+        var hero = heroService.findHeroByName("Carol Danvers");
+
+        assertThat(hero).isPresent();
+        verify(heroRepository, Mockito.times(1)).findByName("Carol Danvers");
+    }
+
+    @Test
+    @DisplayName("Should find a hero by name after adding it, even if it was cached as missing")
+    void itShouldInvalidateCachedMissWhenHeroIsAdded() {
+        var heroSaved = buildHero(1L);
+
+        buildHeroToAdapter();
+        when(heroNameFilter.mightContain(Mockito.anyString())).thenReturn(true);
+        when(heroRepository.findByName(Mockito.anyString())).thenReturn(Optional.empty());
+        Assertions.catchThrowable(() -> heroService.findHeroByName("Carol Danvers"));
+
+        when(heroNameFilter.mightContain(Mockito.anyString())).thenReturn(false);
+        when(heroRepository.save(Mockito.any(Hero.class))).thenReturn(heroSaved);
+        heroService.addNewHero(buildHeroDto());
+        when(heroNameFilter.mightContain(Mockito.anyString())).thenReturn(true);
+        when(heroRepository.findByName(Mockito.anyString())).thenReturn(Optional.of(heroSaved));
+
+        var hero = heroService.findHeroByName("Carol Danvers");
+
+        assertThat(hero).isPresent();
+        assertThat(hero.get().getName()).isEqualTo("Carol Danvers");
+    }
+
     @Test
     @DisplayName("Should throw a BadRequestException when hero name does not informed")
     void itShouldThrowBadRequestExceptionWhenTheNameInformedIsNull() {
@@ -221,6 +509,8 @@ class HeroServiceImplTest {
 
         var hero = heroService.updateHero(heroId, heroDto);
 
+        verify(heroPropertyIndex).update(heroUpdated);
+        verify(heroResponseCache).invalidate();
         assertThat(hero).isNotNull();
         assertThat(hero.getName()).isNotEqualTo("Carol Danvers");
         assertThat(hero.getName()).isEqualTo("Lucas Barbosa");
@@ -233,6 +523,84 @@ class HeroServiceImplTest {
         assertThat(hero.getAssociations()).hasSize(1);
     }
 
+    @Test
+    @DisplayName("Should patch the managed hero and flush only its changes")
+    void itShouldPatchAHero() {
+        var heroId = 1L;
+        var heroSaved = buildHero(heroId);
+        var patch = HeroPatchDto.builder().name("Binary").build();
+
+        when(heroRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(heroSaved));
+        Mockito.doAnswer(invocation -> {
+            heroSaved.setName("Binary");
+            return null;
+        }).when(heroAdapter).adapterPatchToHero(heroSaved, patch);
+        when(heroAdapter.adapterHeroToHeroDto(heroSaved)).thenReturn(HeroDto.builder().name("Binary").build());
+
+        var hero = heroService.patchHero(heroId, patch, null);
+
+        assertThat(hero.getName()).isEqualTo("Binary");
+        verify(heroRepository).flush();
+        verify(heroRepository, Mockito.never()).save(Mockito.any(Hero.class));
+        verify(heroPropertyIndex).update(heroSaved);
+        verify(heroNameFilter).add("Binary");
+        verify(heroResponseCache).invalidate();
+        verify(transactionManager).commit(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Should reject a patch renaming a hero to an existing name")
+    void itShouldRejectPatchToExistingName() {
+        var heroId = 1L;
+        var patch = HeroPatchDto.builder().name("Iron Man").build();
+
+        when(heroRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(buildHero(heroId)));
+        Mockito.doThrow(new DataIntegrityViolationException("uk_hero_name")).when(heroRepository).flush();
+
+        Throwable exception = Assertions.catchThrowable(() -> heroService.patchHero(heroId, patch, null));
+
+        assertThat(exception).isInstanceOf(ConflictException.class).hasMessage("Hero already exists");
+        verify(transactionManager).rollback(Mockito.any());
+        verify(heroResponseCache, Mockito.never()).invalidate();
+    }
+
+    @Test
+    @DisplayName("Should fail an update expecting another version without writing it")
+    void itShouldFailUpdateExpectingAnotherVersion() {
+        var heroId = 1L;
+        var heroSaved = buildHero(heroId);
+        var heroDto = buildHeroDtoToBeUpdated();
+
+        when(heroRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(heroSaved));
+
+        Throwable exception = Assertions.catchThrowable(() -> heroService.updateHero(heroId, heroDto, 2L));
+
+        assertThat(exception)
+            .isInstanceOf(PreconditionFailedException.class)
+            .hasMessage("Hero was changed by another request");
+        verify(heroRepository, Mockito.never()).save(Mockito.any(Hero.class));
+        verify(heroResponseCache, Mockito.never()).invalidate();
+    }
+
+    @Test
+    @DisplayName("Should fail an update racing with another one")
+    void itShouldFailUpdateRacingWithAnotherOne() {
+        var heroId = 1L;
+        var heroSaved = buildHero(heroId);
+        var heroDto = buildHeroDtoToBeUpdated();
+
+        when(heroAdapter.adapterHeroToBeUpdated(Mockito.any(Hero.class), Mockito.any(HeroDto.class)))
+            .thenReturn(buildHeroToBeUpdated(heroId));
+        when(heroRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(heroSaved));
+        when(heroRepository.save(Mockito.any(Hero.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Hero.class, heroId));
+
+        Throwable exception = Assertions.catchThrowable(() -> heroService.updateHero(heroId, heroDto));
+
+        assertThat(exception).isInstanceOf(PreconditionFailedException.class);
+        verify(heroPropertyIndex, Mockito.never()).add(Mockito.any(Hero.class));
+    }
+
     @Test
     @DisplayName("Should throw BadRequestException when try update hero with heroId null")
     void itShouldThrowBadRequestExceptionWhenHeroIdIsNull() {
@@ -246,16 +614,53 @@ class HeroServiceImplTest {
     }
 
     @Test
-    @DisplayName("Should delete a hero by heroId")
+    @DisplayName("Should delete a hero by heroId without loading it")
     void itShouldDeleteAHero() {
         var heroId = 1L;
-        var heroSaved = buildHero(heroId);
 
-        when(heroRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(heroSaved));
+        when(heroRepository.deleteHeroesByIdIn(List.of(heroId))).thenReturn(1);
 
         heroService.deleteHero(heroId);
 
-        verify(heroRepository).delete(heroSaved);
+        verify(heroRepository).deleteValuesByHeroIdIn(List.of(heroId));
+        verify(heroRepository, Mockito.never()).findById(Mockito.anyLong());
+        verify(heroPropertyIndex).removeAll(List.of(heroId));
+        verify(heroResponseCache).invalidate();
+    }
+
+    @Test
+    @DisplayName("Should throw ObjectNotFoundException when no hero was deleted")
+    void itShouldThrowObjectNotFoundExceptionWhenHeroToDeleteDoesNotExist() {
+        when(heroRepository.deleteHeroesByIdIn(Mockito.anyCollection())).thenReturn(0);
+
+        Throwable exception = Assertions.catchThrowable(() -> heroService.deleteHero(1L));
+
+        assertThat(exception)
+            .isInstanceOf(ObjectNotFoundException.class)
+            .hasMessage("Hero doesn't find");
+        verify(heroPropertyIndex, Mockito.never()).removeAll(Mockito.anyCollection());
+        verify(heroResponseCache, Mockito.never()).invalidate();
+    }
+
+    @Test
+    @DisplayName("Should delete heroes in chunks of distinct ids")
+    void itShouldDeleteHeroesInChunks() {
+        var ids = new ArrayList<Long>();
+        LongStream.rangeClosed(1, 2500).forEach(ids::add);
+        ids.add(1L);
+        ids.add(null);
+
+        when(heroRepository.deleteHeroesByIdIn(Mockito.anyCollection()))
+            .thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0).size() - 1);
+
+        var result = heroService.deleteHeroes(ids);
+
+        assertThat(result.getRequested()).isEqualTo(2500);
+        assertThat(result.getDeleted()).isEqualTo(2497);
+        verify(heroRepository).deleteHeroesByIdIn(LongStream.rangeClosed(1, 1000).boxed().collect(Collectors.toList()));
+        verify(heroRepository).deleteHeroesByIdIn(LongStream.rangeClosed(2001, 2500).boxed().collect(Collectors.toList()));
+        verify(heroRepository, Mockito.times(3)).deleteValuesByHeroIdIn(Mockito.anyCollection());
+        verify(heroPropertyIndex, Mockito.times(3)).removeAll(Mockito.anyCollection());
     }
 
     @Test
@@ -0,0 +1,154 @@
+package com.dataguard.superherochallenge.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dataguard.superherochallenge.adapter.HeroAdapter;
+import com.dataguard.superherochallenge.cache.HeroNameCache;
+import com.dataguard.superherochallenge.cache.HeroResponseCache;
+import com.dataguard.superherochallenge.dto.HeroDto;
+import com.dataguard.superherochallenge.dto.HeroMultiGetDto;
+import com.dataguard.superherochallenge.dto.HeroPatchDto;
+import com.dataguard.superherochallenge.dto.HeroValuesPatchDto;
+import com.dataguard.superherochallenge.entity.Hero;
+import com.dataguard.superherochallenge.index.HeroNameFilter;
+import com.dataguard.superherochallenge.index.HeroPropertyIndex;
+import com.dataguard.superherochallenge.metrics.StatementCounter;
+import com.dataguard.superherochallenge.repository.HeroRepository;
+import com.dataguard.superherochallenge.repository.HeroValueDictionary;
+import com.dataguard.superherochallenge.service.HeroMultiGetService;
+import com.dataguard.superherochallenge.service.HeroService;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+// Every operation must run the same number of statements whatever the number of heroes,
+// an N+1 on the hero collections shows up here as a count growing with the dataset
+@DataJpaTest(properties = "hero.multi-get.max-keys=1000")
+@Import({HeroServiceImpl.class, HeroMultiGetServiceImpl.class, HeroAdapter.class, HeroPropertyIndex.class,
+    HeroNameFilter.class, HeroNameCache.class, HeroResponseCache.class, HeroValueDictionary.class})
+class HeroServiceStatementCountTest {
+
+    @Autowired
+    HeroService heroService;
+
+    @Autowired
+    HeroMultiGetService heroMultiGetService;
+
+    @Autowired
+    HeroRepository heroRepository;
+
+    @Autowired
+    TestEntityManager testEntityManager;
+
+    @Autowired
+    HeroPropertyIndex heroPropertyIndex;
+
+    @Autowired
+    HeroNameFilter heroNameFilter;
+
+    @ParameterizedTest(name = "{0} heroes")
+    @ValueSource(ints = {1, 50, 500})
+    @DisplayName("Should read heroes with a constant number of statements")
+    void itShouldReadHeroesWithConstantStatements(int heroes) {
+        var ids = seed(heroes);
+
+        // one select for the heroes (or their ids, then the heroes) and one subselect per collection
+        assertStatements(4, () -> heroService.findAllHeroes());
+        assertStatements(5, () -> heroService.findHeroesPage(null, 50));
+        assertStatements(4, () -> heroService.findHeroesByProperty("power", "flight"));
+        assertStatements(4, () -> heroService.findHeroesByPropertyPage("power", "flight", null, 50));
+        assertStatements(4, () -> heroService.findHeroesByQuery("power=flight AND association=avengers"));
+        assertStatements(4, () -> heroService.findHeroByName(heroes + "-hero-0"));
+        assertStatements(4, () -> heroService.findHeroById(ids.get(0)));
+        // a whole roster, misses included, with the same statements as one hero
+        assertStatements(4, () -> heroMultiGetService.findHeroes(HeroMultiGetDto.builder()
+            .names(IntStream.rangeClosed(0, heroes).mapToObj(i -> heroes + "-hero-" + i).collect(Collectors.toList()))
+            .build()));
+        assertStatements(4, () -> heroMultiGetService.findHeroes(HeroMultiGetDto.builder().ids(ids).build()));
+    }
+
+    @ParameterizedTest(name = "{0} heroes")
+    @ValueSource(ints = {1, 50, 500})
+    @DisplayName("Should write heroes with a constant number of statements")
+    void itShouldWriteHeroesWithConstantStatements(int heroes) {
+        var ids = seed(heroes);
+
+        // the hero and its three collections
+        assertStatements(4, () -> heroService.addNewHero(buildHeroDto(heroes + "-new")));
+        // loading the hero, then updating it and rewriting the powers
+        assertStatements(6, () -> heroService.updateHero(ids.get(0), HeroDto.builder()
+            .alias("New alias")
+            .powers(new String[]{"flight", "healing"})
+            .build()));
+        // loading the hero, then updating the changed column and inserting the one power added
+        assertStatements(4, () -> heroService.patchHero(ids.get(0), HeroPatchDto.builder()
+            .alias("New alias")
+            .powers(HeroValuesPatchDto.builder().add(new String[]{"healing"}).build())
+            .build(), null));
+        // deleting its collections and itself by id, without loading it
+        assertStatements(4, () -> heroService.deleteHero(ids.get(ids.size() - 1)));
+        // the same four statements for a whole chunk of ids
+        assertStatements(4, () -> heroService.deleteHeroes(ids));
+    }
+
+    @ParameterizedTest(name = "{0} heroes")
+    @ValueSource(ints = {1, 50, 500, 501})
+    @DisplayName("Should stream heroes with a constant number of statements per chunk")
+    void itShouldStreamHeroesWithConstantStatementsPerChunk(int heroes) {
+        seed(heroes);
+        var chunks = (heroes + 499) / 500;
+        // a full last chunk needs one more id query to find out it was the last
+        var lastQuery = heroes % 500 == 0 ? 1 : 0;
+
+        assertStatements(chunks * 5L + lastQuery, () -> heroService.streamAllHeroes(heroDto -> { }));
+    }
+
+    private void assertStatements(long expected, Runnable action) {
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        var statements = StatementCounter.count(() -> {
+            action.run();
+            testEntityManager.flush();
+        });
+
+        assertThat(statements).isEqualTo(expected);
+    }
+
+    private List<Long> seed(int heroes) {
+        var saved = heroRepository.saveAll(IntStream.range(0, heroes)
+            .mapToObj(i -> Hero.builder()
+                .name(heroes + "-hero-" + i)
+                .alias("Alias " + i)
+                .origin("Origin " + i)
+                .powers(new String[]{"flight", "power-" + i})
+                .weapons(new String[]{"weapon-" + i})
+                .associations(new String[]{"avengers", "association-" + i})
+                .build())
+            .collect(Collectors.toList()));
+        testEntityManager.flush();
+        testEntityManager.clear();
+        heroPropertyIndex.build();
+        heroNameFilter.build();
+        return saved.stream().map(Hero::getId).collect(Collectors.toList());
+    }
+
+    private HeroDto buildHeroDto(String name) {
+        return HeroDto.builder()
+            .name(name)
+            .alias("Alias")
+            .origin("Origin")
+            .powers(new String[]{"flight"})
+            .weapons(new String[]{"shield"})
+            .associations(new String[]{"avengers"})
+            .build();
+    }
+
+}